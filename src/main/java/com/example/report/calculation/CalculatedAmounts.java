@@ -0,0 +1,28 @@
+package com.example.report.calculation;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of calculating one document. Instances can be reused between calculations.
+ */
+@Getter
+public class CalculatedAmounts {
+
+    private BigDecimal netAmount;
+    private BigDecimal pensionsFund;
+    private BigDecimal personalIncomeTax;
+    private BigDecimal grossAmount;
+
+    void set(BigDecimal netAmount, BigDecimal pensionsFund, BigDecimal personalIncomeTax, BigDecimal grossAmount) {
+        this.netAmount = netAmount;
+        this.pensionsFund = pensionsFund;
+        this.personalIncomeTax = personalIncomeTax;
+        this.grossAmount = grossAmount;
+    }
+
+    void copyFrom(CalculatedAmounts other) {
+        set(other.netAmount, other.pensionsFund, other.personalIncomeTax, other.grossAmount);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.report.calculation;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe memo of calculation results. Payroll documents repeat the same amount with
+ * the same rule for many employees, so most calculations of a run become a lookup. When the cache
+ * is full it starts over empty, which keeps it bounded without tracking usage per entry.
+ */
+public class CalculationCache {
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    static class Key {
+        // Compared by identity, so results of replaced tax rates are never returned
+        private final TaxRules taxRules;
+        private final BigDecimal amount;
+        private final boolean isActive;
+        private final boolean isPensionsPayer;
+        private final String benefitTypeName;
+        private final String calculationMethodName;
+    }
+
+    private final int maximumSize;
+    private final Map<Key, CalculatedAmounts> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    public CalculationCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maximumSize, 1 << 16));
+    }
+
+    CalculatedAmounts get(Key key) {
+        CalculatedAmounts cached = entries.get(key);
+        if (cached == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    void put(Key key, CalculatedAmounts calculatedAmounts) {
+        if (entries.size() >= maximumSize) {
+            entries.clear();
+            resets.increment();
+        }
+        entries.put(key, calculatedAmounts);
+    }
+
+    void invalidate() {
+        entries.clear();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getResets() {
+        return resets.sum();
+    }
+}
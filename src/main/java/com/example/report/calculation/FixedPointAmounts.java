@@ -0,0 +1,29 @@
+package com.example.report.calculation;
+
+import lombok.Getter;
+
+/**
+ * Result of calculating one document in minor units. Instances can be reused between calculations.
+ */
+@Getter
+public class FixedPointAmounts {
+
+    private long netAmount;
+    private long pensionsFund;
+    private long personalIncomeTax;
+    private long grossAmount;
+
+    void set(long netAmount, long pensionsFund, long personalIncomeTax, long grossAmount) {
+        this.netAmount = netAmount;
+        this.pensionsFund = pensionsFund;
+        this.personalIncomeTax = personalIncomeTax;
+        this.grossAmount = grossAmount;
+    }
+
+    public void copyTo(CalculatedAmounts result) {
+        result.set(MinorUnits.toBigDecimal(netAmount),
+                MinorUnits.toBigDecimal(pensionsFund),
+                MinorUnits.toBigDecimal(personalIncomeTax),
+                MinorUnits.toBigDecimal(grossAmount));
+    }
+}
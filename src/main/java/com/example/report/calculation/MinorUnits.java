@@ -0,0 +1,53 @@
+package com.example.report.calculation;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point money arithmetic. Amounts are longs in minor units (1/100, the scale of the amount columns),
+ * rates are longs in millionths. Every operation rounds HALF_UP to whole minor units, which is what the
+ * NUMERIC(19,2) columns do with the unrounded BigDecimal results, and fails on overflow.
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+    public static final int RATE_SCALE = 6;
+    private static final long RATE_ONE = 1_000_000L;
+    private static final double MINOR_UNITS_PER_UNIT = 100.0;
+
+    private MinorUnits() {
+    }
+
+    public static long fromBigDecimal(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    // Nearest double of the amount, the same value BigDecimal.doubleValue() gives
+    public static double toDouble(long minorUnits) {
+        return minorUnits / MINOR_UNITS_PER_UNIT;
+    }
+
+    public static long rateFromBigDecimal(BigDecimal rate) {
+        return rate.movePointRight(RATE_SCALE).longValueExact();
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) >= divisor - Math.abs(remainder)) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    public static long multiply(long minorUnits, long rate) {
+        return divideHalfUp(Math.multiplyExact(minorUnits, rate), RATE_ONE);
+    }
+
+    public static long divide(long minorUnits, long rate) {
+        return divideHalfUp(Math.multiplyExact(minorUnits, RATE_ONE), rate);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.report.calculation;
+
+import com.example.report.model.Benefit;
+import com.example.report.model.Employee;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Calculates net amount, pensions fund, personal income tax and gross amount of a document with the
+ * tax rates in force on its effective date. BigDecimal calculations go through the
+ * {@link CalculationCache} when one is configured.
+ */
+public class TaxCalculator {
+
+    private final CalculationCache calculationCache;
+    private volatile TaxRuleVersions taxRuleVersions;
+
+    public TaxCalculator() {
+        this(TaxRates.DEFAULT, null);
+    }
+
+    public TaxCalculator(TaxRates taxRates, CalculationCache calculationCache) {
+        this.taxRuleVersions = TaxRuleVersions.single(taxRates);
+        this.calculationCache = calculationCache;
+    }
+
+    public void updateTaxRuleVersions(TaxRuleVersions taxRuleVersions) {
+        this.taxRuleVersions = taxRuleVersions;
+        if (calculationCache != null) {
+            calculationCache.invalidate();
+        }
+    }
+
+    public void calculate(LocalDate effectiveDate, BigDecimal amount, boolean isActive, boolean isPensionsPayer, String benefitTypeName, String calculationMethodName, CalculatedAmounts result) {
+        TaxRules taxRules = taxRuleVersions.forDate(effectiveDate);
+        if (calculationCache == null) {
+            taxRules.calculate(amount, isActive, isPensionsPayer, benefitTypeName, calculationMethodName, result);
+            return;
+        }
+
+        CalculationCache.Key key = new CalculationCache.Key(taxRules, amount, isActive, isPensionsPayer, benefitTypeName, calculationMethodName);
+        CalculatedAmounts cached = calculationCache.get(key);
+        if (cached == null) {
+            cached = new CalculatedAmounts();
+            taxRules.calculate(amount, isActive, isPensionsPayer, benefitTypeName, calculationMethodName, cached);
+            calculationCache.put(key, cached);
+        }
+        result.copyFrom(cached);
+    }
+
+    public void calculate(LocalDate effectiveDate, BigDecimal amount, Employee employee, Benefit benefit, CalculatedAmounts result) {
+        calculate(effectiveDate, amount, employee.getIsActive(), employee.getIsPensionsPayer(), benefit.getBenefitTypeName(), benefit.getCalculationMethodName(), result);
+    }
+
+    public CalculatedAmounts calculate(LocalDate effectiveDate, BigDecimal amount, Employee employee, Benefit benefit) {
+        CalculatedAmounts result = new CalculatedAmounts();
+        calculate(effectiveDate, amount, employee, benefit, result);
+        return result;
+    }
+
+    public void calculate(LocalDate effectiveDate, long amount, boolean isActive, boolean isPensionsPayer, String benefitTypeName, String calculationMethodName, FixedPointAmounts result) {
+        taxRuleVersions.forDate(effectiveDate).calculate(amount, isActive, isPensionsPayer, benefitTypeName, calculationMethodName, result);
+    }
+
+    public void calculate(LocalDate effectiveDate, long amount, Employee employee, Benefit benefit, FixedPointAmounts result) {
+        calculate(effectiveDate, amount, employee.getIsActive(), employee.getIsPensionsPayer(), benefit.getBenefitTypeName(), benefit.getCalculationMethodName(), result);
+    }
+
+    /**
+     * Calculates in {@link MinorUnits} and converts to BigDecimal (scale 2) only for the result.
+     */
+    public CalculatedAmounts calculateInMinorUnits(LocalDate effectiveDate, BigDecimal amount, Employee employee, Benefit benefit) {
+        FixedPointAmounts fixedPointAmounts = new FixedPointAmounts();
+        calculate(effectiveDate, MinorUnits.fromBigDecimal(amount), employee, benefit, fixedPointAmounts);
+        CalculatedAmounts result = new CalculatedAmounts();
+        fixedPointAmounts.copyTo(result);
+        return result;
+    }
+
+    public Optional<CalculationCache> getCalculationCache() {
+        return Optional.ofNullable(calculationCache);
+    }
+}
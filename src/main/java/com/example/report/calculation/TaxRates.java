@@ -0,0 +1,34 @@
+package com.example.report.calculation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+@Builder
+public class TaxRates {
+
+    public static final TaxRates DEFAULT = TaxRates.builder()
+            .netRate(BigDecimal.valueOf(0.784))
+            .pensionsFundRate(BigDecimal.valueOf(0.02))
+            .personalIncomeTaxRate(BigDecimal.valueOf(0.196))
+            .netRateWithoutPensions(BigDecimal.valueOf(0.8))
+            .personalIncomeTaxRateWithoutPensions(BigDecimal.valueOf(0.2))
+            .personalIncomeTaxRateOnNet(BigDecimal.valueOf(0.25))
+            .build();
+
+    // Share of gross paid out, pensions fund and income tax for pensions payers
+    private final BigDecimal netRate;
+    private final BigDecimal pensionsFundRate;
+    private final BigDecimal personalIncomeTaxRate;
+
+    // Share of gross paid out and income tax for employees who don't pay pensions
+    private final BigDecimal netRateWithoutPensions;
+    private final BigDecimal personalIncomeTaxRateWithoutPensions;
+
+    // Income tax charged on a net amount
+    private final BigDecimal personalIncomeTaxRateOnNet;
+}
@@ -0,0 +1,52 @@
+package com.example.report.calculation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * {@link TaxRules} compiled for every version of the tax rates, looked up by effective date with a
+ * binary search over epoch days.
+ */
+public class TaxRuleVersions {
+
+    private final long[] effectiveFromEpochDays;
+    private final TaxRules[] rules;
+
+    private TaxRuleVersions(long[] effectiveFromEpochDays, TaxRules[] rules) {
+        this.effectiveFromEpochDays = effectiveFromEpochDays;
+        this.rules = rules;
+    }
+
+    public static TaxRuleVersions compile(NavigableMap<LocalDate, TaxRates> taxRatesByEffectiveFrom) {
+        long[] effectiveFromEpochDays = new long[taxRatesByEffectiveFrom.size()];
+        TaxRules[] rules = new TaxRules[taxRatesByEffectiveFrom.size()];
+        int i = 0;
+        for (Map.Entry<LocalDate, TaxRates> version : taxRatesByEffectiveFrom.entrySet()) {
+            effectiveFromEpochDays[i] = version.getKey().toEpochDay();
+            rules[i] = TaxRules.compile(version.getValue());
+            i++;
+        }
+        return new TaxRuleVersions(effectiveFromEpochDays, rules);
+    }
+
+    public static TaxRuleVersions single(TaxRates taxRates) {
+        return new TaxRuleVersions(new long[]{LocalDate.MIN.toEpochDay()}, new TaxRules[]{TaxRules.compile(taxRates)});
+    }
+
+    public TaxRules forDate(LocalDate effectiveDate) {
+        int index = Arrays.binarySearch(effectiveFromEpochDays, effectiveDate.toEpochDay());
+        if (index < 0) {
+            index = -index - 2;
+        }
+        if (index < 0) {
+            throw new IllegalStateException(String.format("No tax rates in force on %s", effectiveDate));
+        }
+        return rules[index];
+    }
+
+    public int size() {
+        return rules.length;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.report.calculation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Calculation rules compiled from one set of {@link TaxRates}. Every combination of
+ * (active, pensions payer, benefit type, calculation method) maps to a rule in a fixed table,
+ * and every rule works on constants prepared at compile time. Each slot has a BigDecimal rule
+ * and a {@link MinorUnits} fixed-point rule with the same rounding.
+ */
+public class TaxRules {
+
+    public static final String ACCRUAL = "Accrual";
+    public static final String GROSS = "Gross";
+    public static final String NET = "Net";
+
+    private static final int ACCRUAL_TYPE = 0;
+    private static final int OTHER_TYPE = 1;
+    private static final int GROSS_METHOD = 0;
+    private static final int NET_METHOD = 1;
+    private static final int OTHER_METHOD = 2;
+
+    interface Rule {
+        void apply(BigDecimal amount, CalculatedAmounts result);
+    }
+
+    interface FixedPointRule {
+        void apply(long amount, FixedPointAmounts result);
+    }
+
+    private final Rule[] rules = new Rule[2 * 2 * 2 * 3];
+    private final FixedPointRule[] fixedPointRules = new FixedPointRule[2 * 2 * 2 * 3];
+
+    private TaxRules(TaxRates taxRates) {
+        BigDecimal netRate = taxRates.getNetRate();
+        BigDecimal pensionsFundRate = taxRates.getPensionsFundRate();
+        BigDecimal personalIncomeTaxRate = taxRates.getPersonalIncomeTaxRate();
+        BigDecimal netRateWithoutPensions = taxRates.getNetRateWithoutPensions();
+        BigDecimal personalIncomeTaxRateWithoutPensions = taxRates.getPersonalIncomeTaxRateWithoutPensions();
+        BigDecimal personalIncomeTaxRateOnNet = taxRates.getPersonalIncomeTaxRateOnNet();
+        BigDecimal pensionsFundRateOnNet = pensionsFundRate.divide(netRate, RoundingMode.HALF_UP);
+
+        Rule inactive = (amount, result) -> result.set(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        Rule pensionsPayerGross = (amount, result) -> result.set(
+                amount.multiply(netRate),
+                amount.multiply(pensionsFundRate),
+                amount.multiply(personalIncomeTaxRate),
+                amount);
+        Rule pensionsPayerNet = (amount, result) -> result.set(
+                amount,
+                amount.multiply(pensionsFundRateOnNet),
+                amount.multiply(personalIncomeTaxRateOnNet),
+                amount.divide(netRate, RoundingMode.HALF_UP));
+        Rule withoutPensionsGross = (amount, result) -> result.set(
+                amount.multiply(netRateWithoutPensions),
+                BigDecimal.ZERO,
+                amount.multiply(personalIncomeTaxRateWithoutPensions),
+                amount);
+        Rule withoutPensionsNet = (amount, result) -> result.set(
+                amount,
+                BigDecimal.ZERO,
+                amount.multiply(personalIncomeTaxRateOnNet),
+                amount.divide(netRateWithoutPensions, RoundingMode.HALF_UP));
+        Rule untaxed = (amount, result) -> result.set(amount, BigDecimal.ZERO, BigDecimal.ZERO, amount);
+
+        long netRateMicros = MinorUnits.rateFromBigDecimal(netRate);
+        long pensionsFundRateMicros = MinorUnits.rateFromBigDecimal(pensionsFundRate);
+        long personalIncomeTaxRateMicros = MinorUnits.rateFromBigDecimal(personalIncomeTaxRate);
+        long netRateWithoutPensionsMicros = MinorUnits.rateFromBigDecimal(netRateWithoutPensions);
+        long personalIncomeTaxRateWithoutPensionsMicros = MinorUnits.rateFromBigDecimal(personalIncomeTaxRateWithoutPensions);
+        long personalIncomeTaxRateOnNetMicros = MinorUnits.rateFromBigDecimal(personalIncomeTaxRateOnNet);
+        long pensionsFundRateOnNetMicros = MinorUnits.rateFromBigDecimal(pensionsFundRateOnNet);
+
+        FixedPointRule inactiveFixedPoint = (amount, result) -> result.set(0, 0, 0, 0);
+        FixedPointRule pensionsPayerGrossFixedPoint = (amount, result) -> result.set(
+                MinorUnits.multiply(amount, netRateMicros),
+                MinorUnits.multiply(amount, pensionsFundRateMicros),
+                MinorUnits.multiply(amount, personalIncomeTaxRateMicros),
+                amount);
+        FixedPointRule pensionsPayerNetFixedPoint = (amount, result) -> result.set(
+                amount,
+                MinorUnits.multiply(amount, pensionsFundRateOnNetMicros),
+                MinorUnits.multiply(amount, personalIncomeTaxRateOnNetMicros),
+                MinorUnits.divide(amount, netRateMicros));
+        FixedPointRule withoutPensionsGrossFixedPoint = (amount, result) -> result.set(
+                MinorUnits.multiply(amount, netRateWithoutPensionsMicros),
+                0,
+                MinorUnits.multiply(amount, personalIncomeTaxRateWithoutPensionsMicros),
+                amount);
+        FixedPointRule withoutPensionsNetFixedPoint = (amount, result) -> result.set(
+                amount,
+                0,
+                MinorUnits.multiply(amount, personalIncomeTaxRateOnNetMicros),
+                MinorUnits.divide(amount, netRateWithoutPensionsMicros));
+        FixedPointRule untaxedFixedPoint = (amount, result) -> result.set(amount, 0, 0, amount);
+
+        for (int active = 0; active < 2; active++) {
+            for (int pensionsPayer = 0; pensionsPayer < 2; pensionsPayer++) {
+                for (int type = ACCRUAL_TYPE; type <= OTHER_TYPE; type++) {
+                    for (int method = GROSS_METHOD; method <= OTHER_METHOD; method++) {
+                        int index = index(active == 1, pensionsPayer == 1, type, method);
+                        if (active == 0) {
+                            rules[index] = inactive;
+                            fixedPointRules[index] = inactiveFixedPoint;
+                        } else if (type == ACCRUAL_TYPE && method == GROSS_METHOD) {
+                            rules[index] = pensionsPayer == 1 ? pensionsPayerGross : withoutPensionsGross;
+                            fixedPointRules[index] = pensionsPayer == 1 ? pensionsPayerGrossFixedPoint : withoutPensionsGrossFixedPoint;
+                        } else if (type == ACCRUAL_TYPE && method == NET_METHOD) {
+                            rules[index] = pensionsPayer == 1 ? pensionsPayerNet : withoutPensionsNet;
+                            fixedPointRules[index] = pensionsPayer == 1 ? pensionsPayerNetFixedPoint : withoutPensionsNetFixedPoint;
+                        } else {
+                            rules[index] = untaxed;
+                            fixedPointRules[index] = untaxedFixedPoint;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public static TaxRules compile(TaxRates taxRates) {
+        return new TaxRules(taxRates);
+    }
+
+    private static int index(boolean isActive, boolean isPensionsPayer, int benefitType, int calculationMethod) {
+        return (((isActive ? 1 : 0) * 2 + (isPensionsPayer ? 1 : 0)) * 2 + benefitType) * 3 + calculationMethod;
+    }
+
+    private static int benefitType(String benefitTypeName) {
+        return ACCRUAL.equals(benefitTypeName) ? ACCRUAL_TYPE : OTHER_TYPE;
+    }
+
+    private static int calculationMethod(String calculationMethodName) {
+        if (GROSS.equals(calculationMethodName)) {
+            return GROSS_METHOD;
+        }
+        return NET.equals(calculationMethodName) ? NET_METHOD : OTHER_METHOD;
+    }
+
+    Rule resolve(boolean isActive, boolean isPensionsPayer, String benefitTypeName, String calculationMethodName) {
+        return rules[index(isActive, isPensionsPayer, benefitType(benefitTypeName), calculationMethod(calculationMethodName))];
+    }
+
+    public void calculate(BigDecimal amount, boolean isActive, boolean isPensionsPayer, String benefitTypeName, String calculationMethodName, CalculatedAmounts result) {
+        resolve(isActive, isPensionsPayer, benefitTypeName, calculationMethodName).apply(amount, result);
+    }
+
+    public void calculate(long amount, boolean isActive, boolean isPensionsPayer, String benefitTypeName, String calculationMethodName, FixedPointAmounts result) {
+        fixedPointRules[index(isActive, isPensionsPayer, benefitType(benefitTypeName), calculationMethod(calculationMethodName))].apply(amount, result);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.report.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.export")
+public class ReportExportProperties {
+
+    // Rows kept in memory while writing a streamed workbook, older rows are flushed to a temp file
+    private int rowAccessWindowSize = 100;
+
+    // Gzip the temp files of streamed workbooks, trades CPU for disk space
+    private boolean compressTempFiles = true;
+
+    // Write net amounts and totals of the payroll register as values instead of formulas
+    private boolean precomputedTotals = false;
+
+    // Sum the payroll register per employee and benefit in the database instead of loading every entry
+    private boolean databaseAggregation = true;
+
+    // Rows fetched per round trip by the database cursors of streamed exports
+    private int fetchSize = 1000;
+
+    // Reports read per query by the list of reports export
+    private int pageSize = 1000;
+
+    // Registers rendered at the same time by a bulk export
+    private int bulkExportPoolSize = 2;
+
+    // Directory of rendered exports, reused until the entries of their report change
+    private String cacheDirectory = Path.of(System.getProperty("java.io.tmpdir"), "report-exports").toString();
+}
@@ -0,0 +1,44 @@
+package com.example.report.config;
+
+import com.example.report.calculation.CalculationCache;
+import com.example.report.calculation.TaxCalculator;
+import com.example.report.calculation.TaxRates;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class ReportGenerationConfig {
+
+    @Bean
+    public TaxCalculator taxCalculator(ReportGenerationProperties reportGenerationProperties) {
+        int cacheSize = reportGenerationProperties.getCalculationCacheSize();
+        return new TaxCalculator(TaxRates.DEFAULT, cacheSize > 0 ? new CalculationCache(cacheSize) : null);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool reportCalculationPool(ReportGenerationProperties reportGenerationProperties) {
+        return new ForkJoinPool(reportGenerationProperties.getParallelism());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor reportJobExecutor(ReportGenerationProperties reportGenerationProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reportGenerationProperties.getJobPoolSize());
+        executor.setMaxPoolSize(reportGenerationProperties.getJobPoolSize());
+        executor.setQueueCapacity(reportGenerationProperties.getJobQueueCapacity());
+        executor.setThreadNamePrefix("report-job-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor reportExportExecutor(ReportExportProperties reportExportProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reportExportProperties.getBulkExportPoolSize());
+        executor.setMaxPoolSize(reportExportProperties.getBulkExportPoolSize());
+        executor.setThreadNamePrefix("report-export-");
+        return executor;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.report.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.generation")
+public class ReportGenerationProperties {
+
+    // Number of documents read, calculated and committed together in chunked generation
+    private int chunkSize = 1000;
+
+    // Number of worker threads calculating partitions of a chunk in parallel generation
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    // Number of generation jobs that may run at the same time, further jobs wait in the queue
+    private int jobPoolSize = 2;
+
+    // Number of generation jobs that may wait for a free thread, further submissions are rejected with 503
+    private int jobQueueCapacity = 20;
+
+    // How long finished jobs stay queryable before they are evicted
+    private Duration jobRetention = Duration.ofHours(24);
+
+    // Calculate with long minor units instead of BigDecimal, amounts are rounded to cents right away
+    private boolean fixedPointArithmetic = false;
+
+    // Maximum number of memoized calculation results, 0 disables the cache
+    private int calculationCacheSize = 100_000;
+}
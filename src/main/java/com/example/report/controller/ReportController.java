@@ -1,24 +1,43 @@
 package com.example.report.controller;
 
+import com.example.report.export.CompactReportEntriesWriter;
+import com.example.report.export.ExportArtifact;
+import com.example.report.export.ExportFormat;
+import com.example.report.export.ReportStreamingExporter;
+import com.example.report.model.CalculationCacheStatsDTO;
+import com.example.report.model.EmployeeBenefitTotals;
+import com.example.report.model.FixedPointVerificationDTO;
 import com.example.report.model.ReportDTO;
 import com.example.report.model.ReportEntryDTO;
+import com.example.report.model.ReportEntryExportRow;
+import com.example.report.model.ReportJobDTO;
+import com.example.report.model.TaxRateVersionDTO;
+import com.example.report.service.FixedPointVerificationService;
+import com.example.report.service.ReportExportService;
+import com.example.report.service.ReportJobService;
 import com.example.report.service.ReportService;
+import com.example.report.service.TaxRateService;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.springframework.core.io.ByteArrayResource;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.io.ByteArrayOutputStream;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
 
 @RequiredArgsConstructor
 @RestController
@@ -27,24 +46,72 @@ public class ReportController {
 
     public static final String PAYROLL_REGISTER = "Payroll_Register";
     private static final String LIST_OF_REPORTS = "List_Of_Reports";
+    private static final String REPORT_ENTRIES = "Report_Entries";
+    private static final String PAYROLL_REGISTERS = "Payroll_Registers";
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
     private final ReportService reportService;
+    private final ReportExportService reportExportService;
+    private final ReportStreamingExporter reportStreamingExporter;
+    private final CompactReportEntriesWriter compactReportEntriesWriter;
+    private final ReportJobService reportJobService;
+    private final FixedPointVerificationService fixedPointVerificationService;
+    private final TaxRateService taxRateService;
 
-    private ResponseEntity<ByteArrayResource> workbookToResponseEntity(Workbook workbook, String fileName) throws IOException {
+    private void setAttachmentHeaders(String fileName, HttpStatus status, HttpServletResponse response) {
         DateTimeFormatter myFormatObj = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
         String localDateTime = LocalDateTime.now().format(myFormatObj);
 
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        HttpHeaders header = new HttpHeaders();
-        header.setContentType(new MediaType("application", "force-download"));
-        header.set(HttpHeaders.CONTENT_DISPOSITION,
-                        String.format("attachment; filename=%s_%s.xlsx",
-                        fileName,
-                        localDateTime));
-        workbook.write(stream);
-        workbook.close();
+        response.setStatus(status.value());
+        response.setContentType(XLSX_CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(String.format("%s_%s.xlsx", fileName, localDateTime))
+                .build()
+                .toString());
+    }
+
+    private void setStreamedExportHeaders(String fileName, ExportFormat exportFormat, HttpServletResponse response) {
+        DateTimeFormatter myFormatObj = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+        String localDateTime = LocalDateTime.now().format(myFormatObj);
 
-        return new ResponseEntity<>(new ByteArrayResource(stream.toByteArray()),
-                header, HttpStatus.CREATED);
+        response.setContentType(exportFormat.getMediaType().toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(String.format("%s_%s.%s", fileName, localDateTime, exportFormat.getExtension()))
+                .build()
+                .toString());
+    }
+
+    private void writeWorkbookToResponse(Workbook workbook, String fileName, HttpServletResponse response) throws IOException {
+        // No Content-Length, so the container streams the file with chunked transfer encoding as it is written
+        setAttachmentHeaders(fileName, HttpStatus.CREATED, response);
+        try {
+            workbook.write(response.getOutputStream());
+            response.flushBuffer();
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+            workbook.close();
+        }
+    }
+
+    private void writeArtifactToResponse(ExportArtifact artifact, FileChannel channel, String fileName, WebRequest webRequest, HttpServletResponse response) throws IOException {
+        if (webRequest.checkNotModified(artifact.getETag())) {
+            return;
+        }
+        // 200 rather than 201, since shared caches only store and revalidate cacheable statuses
+        setAttachmentHeaders(fileName, HttpStatus.OK, response);
+        response.setContentLengthLong(channel.size());
+        Channels.newInputStream(channel).transferTo(response.getOutputStream());
+        response.flushBuffer();
+    }
+
+    private void writeCompactEntriesToResponse(ReportDTO report, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        compactReportEntriesWriter.write(report, response.getOutputStream());
+        response.flushBuffer();
     }
 
     @PostMapping("/generate")
@@ -52,26 +119,139 @@ public class ReportController {
         return reportService.generateReportEntries(startDate, endDate);
     }
 
+    @PostMapping(value = "/generate", params = "compact=true")
+    public void generateReportEntriesCompact(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate, HttpServletResponse response) throws IOException {
+        writeCompactEntriesToResponse(reportService.generateReportInChunks(startDate, endDate), response);
+    }
+
+    @PostMapping("/generateInChunks")
+    public ReportDTO generateReportInChunks(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return reportService.generateReportInChunks(startDate, endDate);
+    }
+
+    @PostMapping("/generateInParallel")
+    public ReportDTO generateReportInParallel(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return reportService.generateReportInParallel(startDate, endDate);
+    }
+
+    @PostMapping("/{reportId}/regenerate")
+    public ReportDTO regenerateReport(@PathVariable Long reportId) {
+        return reportService.regenerateReport(reportId);
+    }
+
+    @PostMapping("/jobs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ReportJobDTO submitReportJob(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate, @RequestParam(defaultValue = "false") boolean inParallel) {
+        return reportJobService.submitJob(startDate, endDate, inParallel);
+    }
+
+    @GetMapping("/jobs")
+    public List<ReportJobDTO> getAllReportJobs() {
+        return reportJobService.getAllJobs();
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ReportJobDTO getReportJob(@PathVariable UUID jobId) {
+        return reportJobService.getJob(jobId);
+    }
+
+    @GetMapping("/verifyFixedPoint")
+    public FixedPointVerificationDTO verifyFixedPoint(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return fixedPointVerificationService.verify(startDate, endDate);
+    }
+
+    @GetMapping("/calculationCache")
+    public CalculationCacheStatsDTO getCalculationCacheStats() {
+        return reportService.getCalculationCacheStats();
+    }
+
+    @GetMapping("/taxRates")
+    public List<TaxRateVersionDTO> getAllTaxRateVersions() {
+        return taxRateService.getAllTaxRateVersions();
+    }
+
+    @PostMapping("/taxRates")
+    @ResponseStatus(HttpStatus.CREATED)
+    public TaxRateVersionDTO addTaxRateVersion(@RequestBody TaxRateVersionDTO taxRateVersionDTO) {
+        return taxRateService.addTaxRateVersion(taxRateVersionDTO);
+    }
+
+    @PostMapping("/taxRates/reload")
+    public List<TaxRateVersionDTO> reloadTaxRates() {
+        taxRateService.reloadTaxRates();
+        return taxRateService.getAllTaxRateVersions();
+    }
+
     @GetMapping()
     public List<ReportDTO> getAllReports() {
         return reportService.getAllReports();
     }
 
     @GetMapping("/extractReports")
-    public ResponseEntity<ByteArrayResource> extractAllReports() throws IOException {
-        Workbook workbook = reportService.extractAllReports();
-        return workbookToResponseEntity(workbook, LIST_OF_REPORTS);
+    public void extractAllReports(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                  @RequestParam(required = false) Long after,
+                                  @RequestParam(required = false) Integer limit,
+                                  HttpServletResponse response) throws IOException {
+        Workbook workbook = reportService.extractAllReports(startDate, endDate, after, limit);
+        writeWorkbookToResponse(workbook, LIST_OF_REPORTS, response);
     }
 
     @GetMapping("/extractReportEntries")
-    public ResponseEntity<ByteArrayResource> extractReportEntriesByReportId(@RequestParam Long reportId) throws IOException {
-        Workbook workbook = reportService.extractReportEntriesByReportId(reportId);
-        return workbookToResponseEntity(workbook, PAYROLL_REGISTER);
+    public void extractReportEntriesByReportId(@RequestParam Long reportId, WebRequest webRequest, HttpServletResponse response) throws IOException {
+        reportExportService.readPayrollRegister(reportId, (artifact, channel) -> writeArtifactToResponse(artifact, channel, PAYROLL_REGISTER, webRequest, response));
+    }
+
+    @GetMapping("/extractReportEntriesArchive")
+    public void extractPayrollRegisterArchive(@RequestParam(required = false) List<Long> reportIds,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                              HttpServletResponse response) throws IOException {
+        List<Long> archivedReportIds = reportExportService.findReportIds(reportIds, startDate, endDate);
+
+        DateTimeFormatter myFormatObj = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+        String localDateTime = LocalDateTime.now().format(myFormatObj);
+        response.setContentType(ZIP_CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(String.format("%s_%s.zip", PAYROLL_REGISTERS, localDateTime))
+                .build()
+                .toString());
+        reportExportService.writePayrollRegisterArchive(archivedReportIds, response.getOutputStream());
+        response.flushBuffer();
+    }
+
+    @GetMapping("/{reportId}/streamEntries")
+    public void streamReportEntries(@PathVariable Long reportId, @RequestParam(required = false) String format, @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.resolve(format, accept);
+        setStreamedExportHeaders(String.format("%s_%s", REPORT_ENTRIES, reportId), exportFormat, response);
+        reportStreamingExporter.exportEntries(reportId, exportFormat, response.getOutputStream());
+    }
+
+    @GetMapping("/{reportId}/streamRegister")
+    public void streamPayrollRegister(@PathVariable Long reportId, @RequestParam(required = false) String format, @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.resolve(format, accept);
+        setStreamedExportHeaders(String.format("%s_%s", PAYROLL_REGISTER, reportId), exportFormat, response);
+        reportStreamingExporter.exportPayrollRegister(reportId, exportFormat, response.getOutputStream());
+    }
+
+    @GetMapping("/{reportId}/employeeTotals")
+    public List<EmployeeBenefitTotals> getEmployeeTotalsByReportId(@PathVariable Long reportId) {
+        return reportService.getEmployeeTotalsByReportId(reportId);
     }
 
     @GetMapping("/{reportId}")
     public List<ReportEntryDTO> getReportEntriesByReportId(@PathVariable Long reportId) {
         return reportService.getReportEntriesByReportId(reportId);
     }
+
+    @GetMapping(value = "/{reportId}", params = {"compact=true", "!limit"})
+    public void getReportEntriesByReportIdCompact(@PathVariable Long reportId, HttpServletResponse response) throws IOException {
+        writeCompactEntriesToResponse(reportService.getReportById(reportId), response);
+    }
+
+    @GetMapping(value = "/{reportId}", params = "limit")
+    public List<ReportEntryExportRow> getReportEntriesPageByReportId(@PathVariable Long reportId, @RequestParam(required = false) Long after, @RequestParam int limit) {
+        return reportService.getReportEntriesByReportId(reportId, after, limit);
+    }
 }
 
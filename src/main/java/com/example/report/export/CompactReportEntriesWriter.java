@@ -0,0 +1,101 @@
+package com.example.report.export;
+
+import com.example.report.model.Benefit;
+import com.example.report.model.BenefitMapper;
+import com.example.report.model.Employee;
+import com.example.report.model.EmployeeMapper;
+import com.example.report.model.ReportDTO;
+import com.example.report.model.ReportEntryExportRow;
+import com.example.report.repository.ReportExportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+/**
+ * Writes the entries of a report in the compact shape: the report header once, employees and benefits as
+ * dictionaries keyed by id, and entries holding only their references and amounts. The document of an entry
+ * is referenced by id only. Entries are written through a {@link JsonGenerator} as they are read from the
+ * database cursor, so neither entities nor DTOs of the entries are held in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompactReportEntriesWriter {
+
+    private final ReportExportRepository reportExportRepository;
+    private final EmployeeMapper employeeMapper;
+    private final BenefitMapper benefitMapper;
+    private final ObjectMapper objectMapper;
+
+    private static void writeNumberField(JsonGenerator generator, String name, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeEntry(JsonGenerator generator, ReportEntryExportRow entry) {
+        try {
+            generator.writeStartObject();
+            writeNumberField(generator, "id", entry.getId());
+            writeNumberField(generator, "employeeId", entry.getEmployeeId());
+            writeNumberField(generator, "benefitId", entry.getBenefitId());
+            writeNumberField(generator, "documentId", entry.getDocumentId());
+            writeNumberField(generator, "grossAmount", entry.getGrossAmount());
+            writeNumberField(generator, "netAmount", entry.getNetAmount());
+            writeNumberField(generator, "pensionsFund", entry.getPensionsFund());
+            writeNumberField(generator, "personalIncomeTax", entry.getPersonalIncomeTax());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Repeatable read keeps the dictionaries and the entries on one snapshot while a regeneration commits
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void write(ReportDTO report, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeObjectField("report", report);
+
+            generator.writeObjectFieldStart("employees");
+            for (Employee employee : reportExportRepository.findEmployeesByReportId(report.getId())) {
+                generator.writeObjectField(employee.getId().toString(), employeeMapper.entityToDto(employee));
+            }
+            generator.writeEndObject();
+
+            generator.writeObjectFieldStart("benefits");
+            for (Benefit benefit : reportExportRepository.findBenefitsByReportId(report.getId())) {
+                generator.writeObjectField(benefit.getId().toString(), benefitMapper.entityToDto(benefit));
+            }
+            generator.writeEndObject();
+
+            generator.writeArrayFieldStart("entries");
+            try {
+                reportExportRepository.streamEntryAmounts(report.getId(), entry -> writeEntry(generator, entry));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.report.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Writes RFC 4180 rows. Fields containing a separator, quote or line break are quoted, decimals are written
+ * in plain notation so they import exactly.
+ */
+public class CsvWriter {
+
+    private static final char SEPARATOR = ',';
+    private static final String LINE_BREAK = "\r\n";
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    private void writeField(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String field = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        if (field.indexOf(SEPARATOR) < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    public void writeRow(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(SEPARATOR);
+            }
+            writeField(values.get(i));
+        }
+        writer.write(LINE_BREAK);
+    }
+}
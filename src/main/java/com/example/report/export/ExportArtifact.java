@@ -0,0 +1,14 @@
+package com.example.report.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Path;
+
+@Getter
+@RequiredArgsConstructor
+public class ExportArtifact {
+
+    private final Path file;
+    private final String eTag;
+}
@@ -0,0 +1,77 @@
+package com.example.report.export;
+
+import com.example.report.config.ReportExportProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+/**
+ * Rendered exports on local disk, keyed by report id, format and content version of the report.
+ * An export is written under a temporary name and moved into place, so readers never see a partial
+ * file, and storing a new version removes the older versions of the same report and format.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExportArtifactCache {
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    @FunctionalInterface
+    public interface ArtifactWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private final ReportExportProperties reportExportProperties;
+
+    private Path getDirectory() throws IOException {
+        return Files.createDirectories(Path.of(reportExportProperties.getCacheDirectory()));
+    }
+
+    private void deleteArtifacts(Long reportId, String prefix, Path keep) {
+        try (Stream<Path> files = Files.list(getDirectory())) {
+            files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .filter(file -> !file.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+                    .filter(file -> !file.equals(keep))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not remove cached exports of report {}", reportId, e);
+        }
+    }
+
+    public ExportArtifact getOrCreate(Long reportId, String format, String contentVersion, ArtifactWriter writer) throws IOException {
+        String name = String.format("%s_%s_%s", reportId, format, contentVersion);
+        ExportArtifact artifact = new ExportArtifact(getDirectory().resolve(name), String.format("\"%s\"", name));
+        if (Files.exists(artifact.getFile())) {
+            return artifact;
+        }
+
+        Path temporary = Files.createTempFile(getDirectory(), name, TEMPORARY_SUFFIX);
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            writer.writeTo(outputStream);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, artifact.getFile(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Report {}: stored {} export version {}", reportId, format, contentVersion);
+
+        deleteArtifacts(reportId, String.format("%s_%s_", reportId, format), artifact.getFile());
+        return artifact;
+    }
+}
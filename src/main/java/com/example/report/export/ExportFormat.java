@@ -0,0 +1,49 @@
+package com.example.report.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+
+    CSV("csv", new MediaType("text", "csv")),
+    NDJSON("ndjson", new MediaType("application", "x-ndjson"));
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    /**
+     * Picks the format named by the format parameter, otherwise the most preferred one the Accept header allows.
+     * Without either, CSV is used.
+     */
+    public static ExportFormat resolve(String format, String accept) {
+        if (format != null) {
+            for (ExportFormat exportFormat : values()) {
+                if (exportFormat.getExtension().equalsIgnoreCase(format)) {
+                    return exportFormat;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Unsupported export format %s", format));
+        }
+        if (accept == null || accept.isBlank()) {
+            return CSV;
+        }
+
+        List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+        for (MediaType acceptedMediaType : acceptedMediaTypes) {
+            for (ExportFormat exportFormat : values()) {
+                if (acceptedMediaType.includes(exportFormat.getMediaType())) {
+                    return exportFormat;
+                }
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, String.format("No export format matches %s", accept));
+    }
+}
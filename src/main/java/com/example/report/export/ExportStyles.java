@@ -0,0 +1,107 @@
+package com.example.report.export;
+
+import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.usermodel.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the cell styles of a single export. Every distinct style is created once per workbook
+ * and shared by all cells that use it, so the number of styles no longer grows with the number of rows.
+ */
+public class ExportStyles {
+
+    private static final String ARIAL = "Arial";
+
+    private final Workbook workbook;
+    private final Map<String, CellStyle> styles = new HashMap<>();
+
+    public ExportStyles(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    private CellStyle getOrCreate(String key, Supplier<CellStyle> factory) {
+        return styles.computeIfAbsent(key, ignored -> factory.get());
+    }
+
+    public CellStyle getHeaderStyle(int fontHeightInPoints, boolean bold) {
+        return getOrCreate("header_" + fontHeightInPoints + "_" + bold, () -> {
+            CellStyle headerStyle = workbook.createCellStyle();
+
+            Font font = workbook.createFont();
+            font.setFontName(ARIAL);
+            font.setFontHeightInPoints((short) fontHeightInPoints);
+            font.setBold(bold);
+            font.setColor(HSSFColor.HSSFColorPredefined.WHITE.getIndex());
+
+            headerStyle.setFillForegroundColor(IndexedColors.TEAL.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            headerStyle.setFont(font);
+            headerStyle.setAlignment(HorizontalAlignment.CENTER);
+            headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+            headerStyle.setBorderBottom(BorderStyle.THIN);
+            headerStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
+            headerStyle.setWrapText(true);
+            return headerStyle;
+        });
+    }
+
+    public CellStyle getSummarizingStyle() {
+        return getOrCreate("summarizing", () -> {
+            CellStyle lastRowStyle = workbook.createCellStyle();
+
+            Font font = workbook.createFont();
+            font.setFontName(ARIAL);
+            font.setFontHeightInPoints((short) 10);
+            font.setBold(true);
+            font.setItalic(true);
+
+            lastRowStyle.setFont(font);
+            lastRowStyle.setAlignment(HorizontalAlignment.RIGHT);
+            lastRowStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+            lastRowStyle.setBorderBottom(BorderStyle.DOUBLE);
+            lastRowStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
+            lastRowStyle.setWrapText(true);
+            return lastRowStyle;
+        });
+    }
+
+    public CellStyle getCellStringStyle() {
+        return getOrCreate("string", () -> {
+            CellStyle stringStyle = workbook.createCellStyle();
+            stringStyle.setWrapText(false);
+            stringStyle.setBorderBottom(BorderStyle.THIN);
+            stringStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
+            return stringStyle;
+        });
+    }
+
+    public CellStyle getCellNumberStyle() {
+        return getOrCreate("number", () -> {
+            CellStyle numberStyle = workbook.createCellStyle();
+            numberStyle.setWrapText(true);
+            numberStyle.setBorderBottom(BorderStyle.THIN);
+            numberStyle.setDataFormat((short) 1);
+            numberStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
+            numberStyle.setAlignment(HorizontalAlignment.RIGHT);
+            return numberStyle;
+        });
+    }
+
+    public CellStyle getCellDateStyle() {
+        return getOrCreate("date", () -> {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setWrapText(true);
+            dateStyle.setBorderBottom(BorderStyle.THIN);
+            dateStyle.setDataFormat((short) 14);
+            dateStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
+            return dateStyle;
+        });
+    }
+
+    public int getCreatedStyleCount() {
+        return styles.size();
+    }
+}
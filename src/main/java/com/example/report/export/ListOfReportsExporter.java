@@ -0,0 +1,110 @@
+package com.example.report.export;
+
+import com.example.report.config.ReportExportProperties;
+import com.example.report.model.ReportDTO;
+import com.example.report.repository.ReportRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Renders the list of reports. Reports are read in pages of report.export.page-size ordered by id, as
+ * projections that never enter the persistence context, and rows are written through an {@link SXSSFWorkbook}.
+ * Columns have fixed widths, since auto-sizing measures every cell.
+ * The caller must dispose the returned workbook after writing it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ListOfReportsExporter {
+
+    private final ReportRepository reportRepository;
+    private final ReportExportProperties reportExportProperties;
+
+    private void applyCommonSheetStyleForListOfReportsFile(Sheet sheet) {
+        sheet.setColumnWidth(0, 3000);
+        sheet.setColumnWidth(1, 3500);
+        sheet.setColumnWidth(2, 3500);
+        sheet.createFreezePane(0, 1);
+        sheet.setDisplayGridlines(false);
+        sheet.setZoom(130);
+    }
+
+    private void applyHeaderCellStyleForListOfReportsFile(ExportStyles styles, Sheet sheet) {
+        CellStyle headerStyle = styles.getHeaderStyle(11, true);
+
+        Row header = sheet.createRow(0);
+        Cell headerCell = header.createCell(0);
+        headerCell.setCellValue("Report ID");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(1);
+        headerCell.setCellValue("Start date");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(2);
+        headerCell.setCellValue("End date");
+        headerCell.setCellStyle(headerStyle);
+    }
+
+    private void writeReportDataInListOfReportsFileRows(Sheet sheet, Integer rowNumber, ReportDTO report, CellStyle numberStyle, CellStyle dateStyle) {
+        Row row = sheet.createRow(rowNumber);
+
+        Cell cell = row.createCell(0);
+        cell.setCellValue(report.getId());
+        cell.setCellStyle(numberStyle);
+
+        cell = row.createCell(1);
+        cell.setCellValue(report.getStartDate());
+        cell.setCellStyle(dateStyle);
+
+        cell = row.createCell(2);
+        cell.setCellValue(report.getEndDate());
+        cell.setCellStyle(dateStyle);
+    }
+
+    private List<ReportDTO> findPage(LocalDate from, LocalDate to, long lastId, int pageSize) {
+        PageRequest page = PageRequest.of(0, pageSize);
+        return from == null
+                ? reportRepository.findPageAfter(lastId, page)
+                : reportRepository.findPageWithinPeriodAfter(from, to, lastId, page);
+    }
+
+    /**
+     * Exports the reports lying within from and to (all reports when both are null) whose id is greater
+     * than after, at most limit of them when a limit is given.
+     */
+    public Workbook export(LocalDate from, LocalDate to, Long after, Integer limit) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(reportExportProperties.getRowAccessWindowSize());
+        workbook.setCompressTempFiles(reportExportProperties.isCompressTempFiles());
+        ExportStyles styles = new ExportStyles(workbook);
+        Sheet sheet = workbook.createSheet("List of reports");
+        applyCommonSheetStyleForListOfReportsFile(sheet);
+        applyHeaderCellStyleForListOfReportsFile(styles, sheet);
+
+        int remaining = limit == null ? Integer.MAX_VALUE : limit;
+        long lastId = after == null ? 0 : after;
+        int rowNumber = 1;
+        List<ReportDTO> page;
+        do {
+            int pageSize = Math.min(remaining, reportExportProperties.getPageSize());
+            page = pageSize == 0 ? List.of() : findPage(from, to, lastId, pageSize);
+            for (ReportDTO report : page) {
+                writeReportDataInListOfReportsFileRows(sheet, rowNumber++, report, styles.getCellNumberStyle(), styles.getCellDateStyle());
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+                remaining -= page.size();
+            }
+        } while (page.size() == reportExportProperties.getPageSize());
+
+        log.info("List of reports export created {} cell styles for {} rows", styles.getCreatedStyleCount(), rowNumber - 1);
+        return workbook;
+    }
+}
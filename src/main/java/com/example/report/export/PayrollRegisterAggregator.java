@@ -0,0 +1,82 @@
+package com.example.report.export;
+
+import com.example.report.calculation.MinorUnits;
+import com.example.report.model.Benefit;
+import com.example.report.model.Employee;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sums amounts per employee and benefit column into a {@link PayrollRegisterMatrix}. Employees get dense
+ * row indexes in the order they are first seen and benefits get the column indexes of their position in the
+ * register, both looked up by id, so amounts are added to a long array without touching entity hashing.
+ */
+public class PayrollRegisterAggregator {
+
+    private static final int INITIAL_ROWS = 64;
+
+    private final List<Benefit> accrualsList;
+    private final List<Benefit> deductionsList;
+    private final int width;
+    private final Map<Long, Integer> columnsByBenefitId = new HashMap<>();
+    private final Map<Long, Integer> rowsByEmployeeId = new HashMap<>();
+    private final List<Employee> employees = new ArrayList<>();
+    private long[] amounts;
+
+    public PayrollRegisterAggregator(List<Benefit> accrualsList, List<Benefit> deductionsList) {
+        this.accrualsList = accrualsList;
+        this.deductionsList = deductionsList;
+        this.width = PayrollRegisterMatrix.width(accrualsList.size(), deductionsList.size());
+        for (int i = 0; i < accrualsList.size(); i++) {
+            columnsByBenefitId.putIfAbsent(accrualsList.get(i).getId(), i);
+        }
+        for (int i = 0; i < deductionsList.size(); i++) {
+            columnsByBenefitId.putIfAbsent(deductionsList.get(i).getId(), accrualsList.size() + i);
+        }
+        this.amounts = new long[INITIAL_ROWS * width];
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        // Amounts read back from the NUMERIC(19,2) columns already have scale 2
+        return amount.scale() <= MinorUnits.SCALE
+                ? MinorUnits.fromBigDecimal(amount)
+                : MinorUnits.fromBigDecimal(amount.setScale(MinorUnits.SCALE, RoundingMode.HALF_UP));
+    }
+
+    private int getRow(Employee employee) {
+        Integer row = rowsByEmployeeId.get(employee.getId());
+        if (row != null) {
+            return row;
+        }
+        int newRow = employees.size();
+        employees.add(employee);
+        rowsByEmployeeId.put(employee.getId(), newRow);
+        if ((newRow + 1) * width > amounts.length) {
+            amounts = Arrays.copyOf(amounts, amounts.length * 2);
+        }
+        return newRow;
+    }
+
+    public void add(Employee employee, Long benefitId, BigDecimal grossAmount, BigDecimal pensionsFund, BigDecimal personalIncomeTax) {
+        int offset = getRow(employee) * width;
+        Integer column = columnsByBenefitId.get(benefitId);
+        if (column != null) {
+            amounts[offset + column] += toMinorUnits(grossAmount);
+        }
+        amounts[offset + width - 2] += toMinorUnits(personalIncomeTax);
+        amounts[offset + width - 1] += toMinorUnits(pensionsFund);
+    }
+
+    public PayrollRegisterMatrix toMatrix() {
+        return new PayrollRegisterMatrix(employees, accrualsList, deductionsList, Arrays.copyOf(amounts, employees.size() * width));
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.report.export;
+
+import com.example.report.calculation.MinorUnits;
+import com.example.report.config.ReportExportProperties;
+import com.example.report.model.Benefit;
+import com.example.report.model.Employee;
+import com.example.report.model.ReportEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the payroll register of a report from a {@link PayrollRegisterMatrix}. Rows are written through
+ * an {@link SXSSFWorkbook}, which keeps only a sliding window of rows on heap and flushes the rest to
+ * (optionally compressed) temp files.
+ * Columns are addressed in A1 notation, so the register may have any number of benefit columns. Net amounts
+ * and totals are formulas unless precomputed totals are enabled, then they are written as values.
+ * The caller must dispose the returned workbook after writing it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollRegisterExporter {
+
+    private static final String ACCRUAL = "Accrual";
+    private static final String DEDUCTION = "Deduction";
+
+    private final ReportExportProperties reportExportProperties;
+
+    private void applyCommonSheetStyleForPayrollRegisterFile(Sheet sheet) {
+        sheet.createFreezePane(0, 1);
+        sheet.setDisplayGridlines(false);
+        sheet.setZoom(120);
+        sheet.groupColumn(4,6);
+        sheet.setColumnHidden(0, true);
+        sheet.setColumnWidth(1,2200);
+        sheet.setColumnWidth(2,2500);
+        sheet.setColumnWidth(3,2500);
+        sheet.setColumnWidth(4,4500);
+        sheet.setColumnWidth(5,4500);
+        sheet.setColumnWidth(6,4500);
+    }
+
+    private void applyHeaderCellStyleForPayrollRegisterFile(ExportStyles styles, Sheet sheet, List<Benefit> accrualsList, List<Benefit> deductionsList) {
+        CellStyle headerStyle = styles.getHeaderStyle(10, false);
+
+        Row header = sheet.createRow(0);
+
+        Cell headerCell = header.createCell(0);
+        headerCell.setCellValue("Report entry id");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(1);
+        headerCell.setCellValue("Employee id");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(2);
+        headerCell.setCellValue("First name");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(3);
+        headerCell.setCellValue("Last name");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(4);
+        headerCell.setCellValue("Department");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(5);
+        headerCell.setCellValue("Position");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(6);
+        headerCell.setCellValue("Email");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(7);
+        headerCell.setCellValue("Net payable amount");
+        headerCell.setCellStyle(headerStyle);
+
+        for (int i = 0; i < accrualsList.size(); i++) {
+            headerCell = header.createCell(8 + i);
+            headerCell.setCellValue(accrualsList.get(i).getName());
+            headerCell.setCellStyle(headerStyle);
+        }
+
+        headerCell = header.createCell(8 + accrualsList.size());
+        headerCell.setCellValue("Total accruals");
+        headerCell.setCellStyle(headerStyle);
+
+        for (int i = 0; i < deductionsList.size(); i++) {
+            headerCell = header.createCell(9 + accrualsList.size() + i);
+            headerCell.setCellValue(deductionsList.get(i).getName());
+            headerCell.setCellStyle(headerStyle);
+        }
+
+        headerCell = header.createCell(9 + accrualsList.size() + deductionsList.size());
+        headerCell.setCellValue("Personal income tax");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(10 + accrualsList.size() + deductionsList.size());
+        headerCell.setCellValue("Pensions fund");
+        headerCell.setCellStyle(headerStyle);
+
+        headerCell = header.createCell(11 + accrualsList.size() + deductionsList.size());
+        headerCell.setCellValue("Total deductions");
+        headerCell.setCellStyle(headerStyle);
+    }
+
+    private static String column(int columnIndex) {
+        return CellReference.convertNumToColString(columnIndex);
+    }
+
+    private void applySummarizingCellStyleForPayrollRegisterFile(Workbook workbook, ExportStyles styles, PayrollRegisterMatrix matrix, long[] columnTotals) {
+        CellStyle lastRowStyle = styles.getSummarizingStyle();
+        List<Benefit> accrualsList = matrix.getAccrualsList();
+        List<Benefit> deductionsList = matrix.getDeductionsList();
+
+        Row lastRow = workbook.getSheetAt(0).createRow(matrix.getEmployeeCount()+1);
+        int lastRowNum = matrix.getEmployeeCount()+1;
+
+        Cell cellOfLastRow;
+
+        for (int i = 0; i < 7; i++) {
+            cellOfLastRow = lastRow.createCell(i);
+            cellOfLastRow.setCellStyle(lastRowStyle);
+        }
+
+        for (int i = 7; i <= (11 + accrualsList.size() + deductionsList.size()); i++) {
+            cellOfLastRow = lastRow.createCell(i);
+            if (reportExportProperties.isPrecomputedTotals()) {
+                cellOfLastRow.setCellValue(MinorUnits.toDouble(columnTotals[i]));
+            } else {
+                String column = column(i);
+                cellOfLastRow.setCellFormula(String.format("sum(%s2:%s%s)", column, column, lastRowNum));
+            }
+            cellOfLastRow.setCellStyle(lastRowStyle);
+        }
+    }
+
+    private void writeAmountCell(Row row, int columnIndex, long minorUnits, CellStyle cellNumberStyle, long[] columnTotals) {
+        Cell cell = row.createCell(columnIndex);
+        cell.setCellValue(MinorUnits.toDouble(minorUnits));
+        cell.setCellStyle(cellNumberStyle);
+        columnTotals[columnIndex] += minorUnits;
+    }
+
+    private void writeReportEntryDataInPayrollRegisterFileRows(ExportStyles styles, Sheet sheet, Integer rowNumber, Long reportId, PayrollRegisterMatrix matrix, int matrixRow, long[] columnTotals) {
+        Employee employee = matrix.getEmployee(matrixRow);
+        int accrualCount = matrix.getAccrualsList().size();
+        int deductionCount = matrix.getDeductionsList().size();
+
+        CellStyle cellNumberStyle = styles.getCellNumberStyle();
+        CellStyle cellStringStyle = styles.getCellStringStyle();
+
+        Row row = sheet.createRow(rowNumber - 1);
+
+        Cell cell = row.createCell(0);
+        cell.setCellValue(reportId);
+        cell.setCellStyle(cellNumberStyle);
+
+        cell = row.createCell(1);
+        cell.setCellValue(employee.getId());
+        cell.setCellStyle(cellNumberStyle);
+
+        cell = row.createCell(2);
+        cell.setCellValue(employee.getFirstName());
+        cell.setCellStyle(cellStringStyle);
+
+        cell = row.createCell(3);
+        cell.setCellValue(employee.getLastName());
+        cell.setCellStyle(cellStringStyle);
+
+        cell = row.createCell(4);
+        cell.setCellValue(employee.getDepartment());
+        cell.setCellStyle(cellStringStyle);
+
+        cell = row.createCell(5);
+        cell.setCellValue(employee.getPositions());
+        cell.setCellStyle(cellStringStyle);
+
+        cell = row.createCell(6);
+        cell.setCellValue(employee.getEmail());
+        cell.setCellStyle(cellStringStyle);
+
+        int totalAccrualsColumn = 8 + accrualCount;
+        int totalDeductionsColumn = 11 + accrualCount + deductionCount;
+
+        for (int i = 0; i < accrualCount; i++) {
+            writeAmountCell(row, 8 + i, matrix.getAccrual(matrixRow, i), cellNumberStyle, columnTotals);
+        }
+
+        for (int i = 0; i < deductionCount; i++) {
+            writeAmountCell(row, 9 + accrualCount + i, matrix.getDeduction(matrixRow, i), cellNumberStyle, columnTotals);
+        }
+
+        writeAmountCell(row, 9 + accrualCount + deductionCount, matrix.getPersonalIncomeTax(matrixRow), cellNumberStyle, columnTotals);
+        writeAmountCell(row, 10 + accrualCount + deductionCount, matrix.getPensionsFund(matrixRow), cellNumberStyle, columnTotals);
+
+        if (reportExportProperties.isPrecomputedTotals()) {
+            writeAmountCell(row, 7, matrix.getNetAmount(matrixRow), cellNumberStyle, columnTotals);
+            writeAmountCell(row, totalAccrualsColumn, matrix.getTotalAccruals(matrixRow), cellNumberStyle, columnTotals);
+            writeAmountCell(row, totalDeductionsColumn, matrix.getTotalDeductions(matrixRow), cellNumberStyle, columnTotals);
+            return;
+        }
+
+        cell = row.createCell(7);
+        cell.setCellFormula(String.format("(%s%s-%s%s)", column(totalAccrualsColumn), rowNumber, column(totalDeductionsColumn), rowNumber));
+        cell.setCellStyle(cellNumberStyle);
+
+        cell = row.createCell(totalAccrualsColumn);
+        cell.setCellFormula(String.format("sum(%s%s:%s%s)", column(8), rowNumber, column(totalAccrualsColumn - 1), rowNumber));
+        cell.setCellStyle(cellNumberStyle);
+
+        cell = row.createCell(totalDeductionsColumn);
+        cell.setCellFormula(String.format("sum(%s%s:%s%s)", column(totalAccrualsColumn + 1), rowNumber, column(totalDeductionsColumn - 1), rowNumber));
+        cell.setCellStyle(cellNumberStyle);
+    }
+
+    private static List<Benefit> benefitsOfType(List<ReportEntry> reportEntries, String benefitTypeName) {
+        Map<Long, Benefit> benefitsById = new LinkedHashMap<>();
+        for (ReportEntry reportEntry : reportEntries) {
+            Benefit benefit = reportEntry.getBenefit();
+            if (benefit.getBenefitTypeName().equals(benefitTypeName)) {
+                benefitsById.putIfAbsent(benefit.getId(), benefit);
+            }
+        }
+        return new ArrayList<>(benefitsById.values());
+    }
+
+    public Workbook export(List<ReportEntry> reportEntries) {
+        PayrollRegisterAggregator aggregator = new PayrollRegisterAggregator(benefitsOfType(reportEntries, ACCRUAL), benefitsOfType(reportEntries, DEDUCTION));
+        for (ReportEntry reportEntry : reportEntries) {
+            aggregator.add(reportEntry.getEmployee(), reportEntry.getBenefit().getId(),
+                    reportEntry.getGrossAmount(), reportEntry.getPensionsFund(), reportEntry.getPersonalIncomeTax());
+        }
+        Long reportId = reportEntries.isEmpty() ? null : reportEntries.get(0).getReport().getId();
+        return export(reportId, aggregator.toMatrix());
+    }
+
+    public Workbook export(Long reportId, PayrollRegisterMatrix matrix) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(reportExportProperties.getRowAccessWindowSize());
+        workbook.setCompressTempFiles(reportExportProperties.isCompressTempFiles());
+        ExportStyles styles = new ExportStyles(workbook);
+        Sheet sheet = workbook.createSheet("Payroll Register");
+        applyCommonSheetStyleForPayrollRegisterFile(sheet);
+        applyHeaderCellStyleForPayrollRegisterFile(styles, sheet, matrix.getAccrualsList(), matrix.getDeductionsList());
+
+        long[] columnTotals = new long[12 + matrix.getAccrualsList().size() + matrix.getDeductionsList().size()];
+        for (int i = 0; i < matrix.getEmployeeCount(); i++) {
+            writeReportEntryDataInPayrollRegisterFileRows(styles, sheet, i + 2, reportId, matrix, i, columnTotals);
+        }
+        applySummarizingCellStyleForPayrollRegisterFile(workbook, styles, matrix, columnTotals);
+
+        log.info("Payroll register export created {} cell styles for {} rows", styles.getCreatedStyleCount(), matrix.getEmployeeCount());
+        return workbook;
+    }
+}
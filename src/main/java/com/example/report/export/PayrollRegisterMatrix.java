@@ -0,0 +1,84 @@
+package com.example.report.export;
+
+import com.example.report.model.Benefit;
+import com.example.report.model.Employee;
+
+import java.util.List;
+
+/**
+ * Aggregated amounts of a payroll register in minor units. Row i holds the employee with dense index i,
+ * its columns are the accruals, the deductions, personal income tax and pensions fund, so a register row
+ * is a contiguous slice of one long array. Totals and the net amount are derived from the row when read.
+ */
+public class PayrollRegisterMatrix {
+
+    private final List<Employee> employees;
+    private final List<Benefit> accrualsList;
+    private final List<Benefit> deductionsList;
+    private final long[] amounts;
+    private final int width;
+
+    PayrollRegisterMatrix(List<Employee> employees, List<Benefit> accrualsList, List<Benefit> deductionsList, long[] amounts) {
+        this.employees = employees;
+        this.accrualsList = accrualsList;
+        this.deductionsList = deductionsList;
+        this.amounts = amounts;
+        this.width = accrualsList.size() + deductionsList.size() + 2;
+    }
+
+    static int width(int accrualCount, int deductionCount) {
+        return accrualCount + deductionCount + 2;
+    }
+
+    public int getEmployeeCount() {
+        return employees.size();
+    }
+
+    public Employee getEmployee(int row) {
+        return employees.get(row);
+    }
+
+    public List<Benefit> getAccrualsList() {
+        return accrualsList;
+    }
+
+    public List<Benefit> getDeductionsList() {
+        return deductionsList;
+    }
+
+    private long sum(int row, int fromColumn, int toColumn) {
+        long sum = 0;
+        for (int i = row * width + fromColumn; i < row * width + toColumn; i++) {
+            sum += amounts[i];
+        }
+        return sum;
+    }
+
+    public long getAccrual(int row, int accrual) {
+        return amounts[row * width + accrual];
+    }
+
+    public long getDeduction(int row, int deduction) {
+        return amounts[row * width + accrualsList.size() + deduction];
+    }
+
+    public long getPersonalIncomeTax(int row) {
+        return amounts[row * width + width - 2];
+    }
+
+    public long getPensionsFund(int row) {
+        return amounts[row * width + width - 1];
+    }
+
+    public long getTotalAccruals(int row) {
+        return sum(row, 0, accrualsList.size());
+    }
+
+    public long getTotalDeductions(int row) {
+        return sum(row, accrualsList.size(), width);
+    }
+
+    public long getNetAmount(int row) {
+        return getTotalAccruals(row) - getTotalDeductions(row);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.report.export;
+
+import com.example.report.model.Benefit;
+import com.example.report.model.EmployeeBenefitTotals;
+import com.example.report.model.PayrollRegisterRow;
+import com.example.report.model.ReportEntryExportRow;
+import com.example.report.repository.ReportExportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes report entries and the payroll register as CSV or newline-delimited JSON while they are read
+ * from the database cursor. Only the register row of the current employee is kept in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportStreamingExporter {
+
+    private static final String ACCRUAL = "Accrual";
+    private static final String DEDUCTION = "Deduction";
+    private static final List<String> ENTRY_HEADER = List.of("id", "reportId", "employeeId", "firstName", "lastName",
+            "benefitId", "benefitName", "benefitTypeName", "documentId", "effectiveDate",
+            "grossAmount", "netAmount", "pensionsFund", "personalIncomeTax");
+
+    private final ReportExportRepository reportExportRepository;
+    private final ObjectMapper objectMapper;
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(T row) throws IOException;
+    }
+
+    private static <T> Consumer<T> unchecked(RowWriter<T> rowWriter) {
+        return row -> {
+            try {
+                rowWriter.write(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private <T> void export(ExportFormat format, OutputStream outputStream, List<String> csvHeader, Function<T, List<?>> csvValues, Consumer<Consumer<T>> rowSource) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try {
+            if (format == ExportFormat.CSV) {
+                CsvWriter csvWriter = new CsvWriter(writer);
+                csvWriter.writeRow(csvHeader);
+                rowSource.accept(unchecked(row -> csvWriter.writeRow(csvValues.apply(row))));
+            } else {
+                ObjectWriter objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                rowSource.accept(unchecked(row -> {
+                    objectWriter.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                }));
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    public void exportEntries(Long reportId, ExportFormat format, OutputStream outputStream) throws IOException {
+        export(format, outputStream, ENTRY_HEADER, (ReportEntryExportRow row) -> Arrays.asList(
+                        row.getId(), row.getReportId(), row.getEmployeeId(), row.getFirstName(), row.getLastName(),
+                        row.getBenefitId(), row.getBenefitName(), row.getBenefitTypeName(), row.getDocumentId(), row.getEffectiveDate(),
+                        row.getGrossAmount(), row.getNetAmount(), row.getPensionsFund(), row.getPersonalIncomeTax()),
+                consumer -> reportExportRepository.streamEntries(reportId, consumer));
+    }
+
+    /**
+     * One column per benefit, as in the xlsx register. A column is named after its benefit, with the benefit
+     * id added when another benefit of the report has the same name, so JSON rows keep every column.
+     */
+    private static Map<Long, String> columnsByBenefitId(List<Benefit> benefits, Map<String, Long> nameCounts) {
+        Map<Long, String> columns = new LinkedHashMap<>();
+        for (Benefit benefit : benefits) {
+            String name = benefit.getName();
+            columns.put(benefit.getId(), nameCounts.get(name) > 1 ? String.format("%s (%d)", name, benefit.getId()) : name);
+        }
+        return columns;
+    }
+
+    // Repeatable read keeps the benefit columns and the totals on one snapshot while a regeneration commits
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportPayrollRegister(Long reportId, ExportFormat format, OutputStream outputStream) throws IOException {
+        List<Benefit> benefits = reportExportRepository.findBenefitsByReportId(reportId);
+        List<Benefit> accrualsList = benefits.stream().filter(benefit -> ACCRUAL.equals(benefit.getBenefitTypeName())).collect(Collectors.toList());
+        List<Benefit> deductionsList = benefits.stream().filter(benefit -> DEDUCTION.equals(benefit.getBenefitTypeName())).collect(Collectors.toList());
+        Map<String, Long> nameCounts = benefits.stream().collect(Collectors.groupingBy(Benefit::getName, Collectors.counting()));
+        Map<Long, String> accrualColumns = columnsByBenefitId(accrualsList, nameCounts);
+        Map<Long, String> deductionColumns = columnsByBenefitId(deductionsList, nameCounts);
+
+        List<String> csvHeader = Stream.of(
+                        Stream.of("employeeId", "firstName", "lastName", "department", "positions", "email", "netPayableAmount"),
+                        accrualColumns.values().stream(),
+                        Stream.of("totalAccruals"),
+                        deductionColumns.values().stream(),
+                        Stream.of("personalIncomeTax", "pensionsFund", "totalDeductions"))
+                .flatMap(Function.identity())
+                .collect(Collectors.toList());
+
+        Function<PayrollRegisterRow, List<?>> csvValues = row -> {
+            List<Object> values = new ArrayList<>(csvHeader.size());
+            values.addAll(Arrays.asList(row.getEmployeeId(), row.getFirstName(), row.getLastName(), row.getDepartment(),
+                    row.getPositions(), row.getEmail(), row.getNetPayableAmount()));
+            values.addAll(row.getAccruals().values());
+            values.add(row.getTotalAccruals());
+            values.addAll(row.getDeductions().values());
+            values.addAll(Arrays.asList(row.getPersonalIncomeTax(), row.getPensionsFund(), row.getTotalDeductions()));
+            return values;
+        };
+
+        export(format, outputStream, csvHeader, csvValues, consumer -> {
+            PayrollRegisterAccumulator accumulator = new PayrollRegisterAccumulator(accrualColumns, deductionColumns, consumer);
+            reportExportRepository.streamEmployeeBenefitTotals(reportId, accumulator::add);
+            accumulator.finish();
+        });
+    }
+
+    /**
+     * Folds the per-benefit totals of one employee into a register row, which is emitted as soon as the
+     * totals of the next employee start.
+     */
+    private static class PayrollRegisterAccumulator {
+
+        private final Map<Long, String> accrualColumns;
+        private final Map<Long, String> deductionColumns;
+        private final Consumer<PayrollRegisterRow> consumer;
+        private PayrollRegisterRow current;
+
+        PayrollRegisterAccumulator(Map<Long, String> accrualColumns, Map<Long, String> deductionColumns, Consumer<PayrollRegisterRow> consumer) {
+            this.accrualColumns = accrualColumns;
+            this.deductionColumns = deductionColumns;
+            this.consumer = consumer;
+        }
+
+        private static Map<String, BigDecimal> zeroAmounts(Map<Long, String> columns) {
+            Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+            columns.values().forEach(column -> amounts.put(column, BigDecimal.ZERO));
+            return amounts;
+        }
+
+        private static BigDecimal orZero(BigDecimal amount) {
+            return amount == null ? BigDecimal.ZERO : amount;
+        }
+
+        void add(EmployeeBenefitTotals totals) {
+            if (current == null || !current.getEmployeeId().equals(totals.getEmployeeId())) {
+                finish();
+                current = PayrollRegisterRow.builder()
+                        .employeeId(totals.getEmployeeId())
+                        .firstName(totals.getFirstName())
+                        .lastName(totals.getLastName())
+                        .department(totals.getDepartment())
+                        .positions(totals.getPositions())
+                        .email(totals.getEmail())
+                        .accruals(zeroAmounts(accrualColumns))
+                        .deductions(zeroAmounts(deductionColumns))
+                        .totalAccruals(BigDecimal.ZERO)
+                        .personalIncomeTax(BigDecimal.ZERO)
+                        .pensionsFund(BigDecimal.ZERO)
+                        .build();
+            }
+
+            BigDecimal grossAmount = orZero(totals.getGrossAmount());
+            if (accrualColumns.containsKey(totals.getBenefitId())) {
+                current.getAccruals().merge(accrualColumns.get(totals.getBenefitId()), grossAmount, BigDecimal::add);
+                current.setTotalAccruals(current.getTotalAccruals().add(grossAmount));
+            } else if (deductionColumns.containsKey(totals.getBenefitId())) {
+                current.getDeductions().merge(deductionColumns.get(totals.getBenefitId()), grossAmount, BigDecimal::add);
+            }
+            current.setPersonalIncomeTax(current.getPersonalIncomeTax().add(orZero(totals.getPersonalIncomeTax())));
+            current.setPensionsFund(current.getPensionsFund().add(orZero(totals.getPensionsFund())));
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            BigDecimal totalDeductions = current.getDeductions().values().stream()
+                    .reduce(BigDecimal.ZERO, BigDecimal::add)
+                    .add(current.getPersonalIncomeTax())
+                    .add(current.getPensionsFund());
+            current.setTotalDeductions(totalDeductions);
+            current.setNetPayableAmount(current.getTotalAccruals().subtract(totalDeductions));
+            consumer.accept(current);
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.report.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CalculationCacheStatsDTO {
+
+    private boolean enabled;
+    private int maximumSize;
+    private int size;
+    private long hits;
+    private long misses;
+    private long resets;
+    private double hitRate;
+}
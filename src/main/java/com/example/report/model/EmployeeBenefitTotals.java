@@ -0,0 +1,30 @@
+package com.example.report.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts of one employee and one benefit of a report, summed over all entries of that pair.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeBenefitTotals {
+
+    private Long employeeId;
+    private String firstName;
+    private String lastName;
+    private String department;
+    private String positions;
+    private String email;
+    private Long benefitId;
+    private BigDecimal grossAmount;
+    private BigDecimal pensionsFund;
+    private BigDecimal personalIncomeTax;
+    private BigDecimal netAmount;
+}
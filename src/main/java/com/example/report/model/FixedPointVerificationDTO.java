@@ -0,0 +1,30 @@
+package com.example.report.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FixedPointVerificationDTO {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    private long documentsChecked;
+    private long mismatchedDocuments;
+    private List<Long> mismatchedDocumentIds;
+
+    private BigDecimal bigDecimalNetTotal;
+    private BigDecimal fixedPointNetTotal;
+    private BigDecimal bigDecimalGrossTotal;
+    private BigDecimal fixedPointGrossTotal;
+    private boolean identical;
+}
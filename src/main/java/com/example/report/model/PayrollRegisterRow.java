@@ -0,0 +1,31 @@
+package com.example.report.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PayrollRegisterRow {
+
+    private Long employeeId;
+    private String firstName;
+    private String lastName;
+    private String department;
+    private String positions;
+    private String email;
+    private BigDecimal netPayableAmount;
+    // Gross amount per benefit column, in the column order of the register
+    private Map<String, BigDecimal> accruals;
+    private BigDecimal totalAccruals;
+    private Map<String, BigDecimal> deductions;
+    private BigDecimal personalIncomeTax;
+    private BigDecimal pensionsFund;
+    private BigDecimal totalDeductions;
+}
@@ -12,8 +12,12 @@ import java.math.BigDecimal;
 @Builder
 @Entity
 public class ReportEntry {
+    // Must match the increment of report_entry_id_seq
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "report_entry_id_seq")
+    @SequenceGenerator(name = "report_entry_id_seq", sequenceName = "report_entry_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(cascade = CascadeType.ALL)
@@ -0,0 +1,31 @@
+package com.example.report.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReportEntryExportRow {
+
+    private Long id;
+    private Long reportId;
+    private Long employeeId;
+    private String firstName;
+    private String lastName;
+    private Long benefitId;
+    private String benefitName;
+    private String benefitTypeName;
+    private Long documentId;
+    private LocalDate effectiveDate;
+    private BigDecimal grossAmount;
+    private BigDecimal netAmount;
+    private BigDecimal pensionsFund;
+    private BigDecimal personalIncomeTax;
+}
@@ -0,0 +1,32 @@
+package com.example.report.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReportJobDTO {
+
+    private UUID id;
+    private ReportJobStatus status;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private boolean inParallel;
+
+    private long totalDocuments;
+    private long processedDocuments;
+    private double documentsPerSecond;
+
+    private Long reportId;
+    private String errorMessage;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,8 @@
+package com.example.report.model;
+
+public enum ReportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
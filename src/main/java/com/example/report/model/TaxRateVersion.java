@@ -0,0 +1,31 @@
+package com.example.report.model;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class TaxRateVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private LocalDate effectiveFrom;
+
+    private BigDecimal netRate;
+    private BigDecimal pensionsFundRate;
+    private BigDecimal personalIncomeTaxRate;
+    private BigDecimal netRateWithoutPensions;
+    private BigDecimal personalIncomeTaxRateWithoutPensions;
+    private BigDecimal personalIncomeTaxRateOnNet;
+}
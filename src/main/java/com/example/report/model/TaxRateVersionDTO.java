@@ -0,0 +1,26 @@
+package com.example.report.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TaxRateVersionDTO {
+
+    private Long id;
+    private LocalDate effectiveFrom;
+
+    private BigDecimal netRate;
+    private BigDecimal pensionsFundRate;
+    private BigDecimal personalIncomeTaxRate;
+    private BigDecimal netRateWithoutPensions;
+    private BigDecimal personalIncomeTaxRateWithoutPensions;
+    private BigDecimal personalIncomeTaxRateOnNet;
+}
@@ -0,0 +1,44 @@
+package com.example.report.model;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+public class TaxRateVersionMapper {
+
+    public TaxRateVersionDTO entityToDto(TaxRateVersion taxRateVersion) {
+        return TaxRateVersionDTO.builder()
+                .id(taxRateVersion.getId())
+                .effectiveFrom(taxRateVersion.getEffectiveFrom())
+                .netRate(taxRateVersion.getNetRate())
+                .pensionsFundRate(taxRateVersion.getPensionsFundRate())
+                .personalIncomeTaxRate(taxRateVersion.getPersonalIncomeTaxRate())
+                .netRateWithoutPensions(taxRateVersion.getNetRateWithoutPensions())
+                .personalIncomeTaxRateWithoutPensions(taxRateVersion.getPersonalIncomeTaxRateWithoutPensions())
+                .personalIncomeTaxRateOnNet(taxRateVersion.getPersonalIncomeTaxRateOnNet())
+                .build();
+    }
+
+    public List<TaxRateVersionDTO> entityToDto(List<TaxRateVersion> taxRateVersions) {
+        return taxRateVersions.stream().map(this::entityToDto).collect(Collectors.toList());
+    }
+
+    public TaxRateVersion dtoToEntity(TaxRateVersionDTO taxRateVersionDTO) {
+        return TaxRateVersion.builder()
+                .id(taxRateVersionDTO.getId())
+                .effectiveFrom(taxRateVersionDTO.getEffectiveFrom())
+                .netRate(taxRateVersionDTO.getNetRate())
+                .pensionsFundRate(taxRateVersionDTO.getPensionsFundRate())
+                .personalIncomeTaxRate(taxRateVersionDTO.getPersonalIncomeTaxRate())
+                .netRateWithoutPensions(taxRateVersionDTO.getNetRateWithoutPensions())
+                .personalIncomeTaxRateWithoutPensions(taxRateVersionDTO.getPersonalIncomeTaxRateWithoutPensions())
+                .personalIncomeTaxRateOnNet(taxRateVersionDTO.getPersonalIncomeTaxRateOnNet())
+                .build();
+    }
+
+    public List<TaxRateVersion> dtoToEntity(List<TaxRateVersionDTO> taxRateVersionDTOs) {
+        return taxRateVersionDTOs.stream().map(this::dtoToEntity).collect(Collectors.toList());
+    }
+}
@@ -2,6 +2,15 @@ package com.example.report.repository;
 
 import com.example.report.model.Benefit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
 
 public interface BenefitRepository extends JpaRepository<Benefit, Long> {
+
+    @Query("SELECT b FROM Benefit b WHERE b.id IN " +
+            "(SELECT d.benefitId FROM Document d WHERE d.effectiveDate BETWEEN :from AND :to)")
+    List<Benefit> findAllReferencedByDocumentsEffectiveBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
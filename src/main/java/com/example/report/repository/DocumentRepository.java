@@ -1,11 +1,40 @@
 package com.example.report.repository;
 
 import com.example.report.model.Document;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
 
 public interface DocumentRepository extends JpaRepository<Document, Long> {
     List<Document> findByEffectiveDateBetween(LocalDate from, LocalDate to);
+
+    long countByEffectiveDateBetween(LocalDate from, LocalDate to);
+
+    @Query("SELECT d FROM Document d " +
+            "WHERE d.effectiveDate BETWEEN :from AND :to " +
+            "AND NOT EXISTS (SELECT e FROM ReportEntry e WHERE e.report.id = :reportId AND e.document.id = d.id)")
+    List<Document> findWithoutEntriesInReport(@Param("reportId") Long reportId,
+                                              @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to);
+
+    @Query("SELECT d FROM Document d " +
+            "WHERE d.effectiveDate BETWEEN :from AND :to " +
+            "ORDER BY d.effectiveDate, d.id")
+    List<Document> findChunkByEffectiveDateBetween(@Param("from") LocalDate from,
+                                                   @Param("to") LocalDate to,
+                                                   Pageable pageable);
+
+    @Query("SELECT d FROM Document d " +
+            "WHERE d.effectiveDate BETWEEN :from AND :to " +
+            "AND (d.effectiveDate > :lastEffectiveDate OR (d.effectiveDate = :lastEffectiveDate AND d.id > :lastId)) " +
+            "ORDER BY d.effectiveDate, d.id")
+    List<Document> findChunkByEffectiveDateBetweenAfter(@Param("from") LocalDate from,
+                                                        @Param("to") LocalDate to,
+                                                        @Param("lastEffectiveDate") LocalDate lastEffectiveDate,
+                                                        @Param("lastId") Long lastId,
+                                                        Pageable pageable);
 }
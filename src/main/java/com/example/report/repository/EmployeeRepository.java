@@ -2,6 +2,15 @@ package com.example.report.repository;
 
 import com.example.report.model.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+
+    @Query("SELECT e FROM Employee e WHERE e.id IN " +
+            "(SELECT d.employeeId FROM Document d WHERE d.effectiveDate BETWEEN :from AND :to)")
+    List<Employee> findAllReferencedByDocumentsEffectiveBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -0,0 +1,91 @@
+package com.example.report.repository;
+
+import com.example.report.model.ReportEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Bulk write path for generated report entries. Ids come from report_entry_id_seq in pooled blocks
+ * (the same allocation Hibernate uses for {@link ReportEntry}) and rows are inserted with JDBC batches,
+ * so employee, benefit, document and report are only written as foreign keys and never merged.
+ * Every row also records the amount and upload date of its document, which is how incremental
+ * regeneration recognizes entries whose document has changed since.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReportEntryBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String NEXT_ID_BLOCKS_SQL = "SELECT nextval('report_entry_id_seq') FROM generate_series(1, ?)";
+    private static final String INSERT_SQL = "INSERT INTO report_entry " +
+            "(id, employee_id, benefit_id, document_id, net_amount, pensions_fund, personal_income_tax, gross_amount, report_id, " +
+            "document_amount, document_upload_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_STALE_SQL = "DELETE FROM report_entry e " +
+            "WHERE e.report_id = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM documents d " +
+            "WHERE d.id = e.document_id " +
+            "AND d.effective_date BETWEEN ? AND ? " +
+            "AND d.employee_id = e.employee_id " +
+            "AND d.benefit_id = e.benefit_id " +
+            "AND d.amount = e.document_amount " +
+            "AND d.upload_date IS NOT DISTINCT FROM e.document_upload_date)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private void assignIds(List<ReportEntry> reportEntries) {
+        int blockCount = (reportEntries.size() + ReportEntry.ID_ALLOCATION_SIZE - 1) / ReportEntry.ID_ALLOCATION_SIZE;
+        List<Long> blockHighValues = jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blockCount);
+
+        int index = 0;
+        for (Long highValue : blockHighValues) {
+            long id = Math.max(1, highValue - ReportEntry.ID_ALLOCATION_SIZE + 1);
+            for (; id <= highValue && index < reportEntries.size(); id++) {
+                reportEntries.get(index++).setId(id);
+            }
+        }
+        if (index < reportEntries.size()) {
+            throw new IllegalStateException(String.format("Allocated ids for %s of %s report entries", index, reportEntries.size()));
+        }
+    }
+
+    private void setInsertParameters(PreparedStatement preparedStatement, ReportEntry reportEntry) throws SQLException {
+        preparedStatement.setLong(1, reportEntry.getId());
+        preparedStatement.setLong(2, reportEntry.getEmployee().getId());
+        preparedStatement.setLong(3, reportEntry.getBenefit().getId());
+        preparedStatement.setLong(4, reportEntry.getDocument().getId());
+        preparedStatement.setBigDecimal(5, reportEntry.getNetAmount());
+        preparedStatement.setBigDecimal(6, reportEntry.getPensionsFund());
+        preparedStatement.setBigDecimal(7, reportEntry.getPersonalIncomeTax());
+        preparedStatement.setBigDecimal(8, reportEntry.getGrossAmount());
+        preparedStatement.setLong(9, reportEntry.getReport().getId());
+        preparedStatement.setBigDecimal(10, reportEntry.getDocument().getAmount());
+        preparedStatement.setObject(11, reportEntry.getDocument().getUploadDate());
+    }
+
+    @Transactional
+    public List<ReportEntry> insertAll(List<ReportEntry> reportEntries) {
+        if (reportEntries.isEmpty()) {
+            return reportEntries;
+        }
+        assignIds(reportEntries);
+        jdbcTemplate.batchUpdate(INSERT_SQL, reportEntries, BATCH_SIZE, this::setInsertParameters);
+        return reportEntries;
+    }
+
+    /**
+     * Removes entries of the report whose document was deleted, moved out of the period or changed
+     * since the entry was calculated.
+     */
+    @Transactional
+    public int deleteStaleEntries(Long reportId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.update(DELETE_STALE_SQL, reportId, from, to);
+    }
+}
@@ -1,10 +1,41 @@
 package com.example.report.repository;
 
 import com.example.report.model.ReportEntry;
+import com.example.report.model.ReportEntryExportRow;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 public interface ReportEntryRepository extends JpaRepository<ReportEntry, Long> {
     List<ReportEntry> findAllByReportId(Long reportId);
+
+    /**
+     * Loads the entries of a report together with their employee, benefit, document and report in one
+     * query, as read-only entities that are neither snapshotted nor dirty checked. Every association is
+     * fetched since EAGER ones left out of the graph would still be loaded by a select per entry.
+     */
+    @EntityGraph(attributePaths = {"employee", "benefit", "document", "report"})
+    @QueryHints(@QueryHint(name = QueryHints.HINT_READONLY, value = "true"))
+    @Query("SELECT r FROM ReportEntry r WHERE r.report.id = :reportId ORDER BY r.id")
+    List<ReportEntry> findAllWithAssociationsByReportId(@Param("reportId") Long reportId);
+
+    @Query("SELECT new com.example.report.model.ReportEntryExportRow(r.id, r.report.id, e.id, e.firstName, e.lastName, " +
+            "b.id, b.name, b.benefitTypeName, d.id, d.effectiveDate, " +
+            "r.grossAmount, r.netAmount, r.pensionsFund, r.personalIncomeTax) " +
+            "FROM ReportEntry r " +
+            "LEFT JOIN r.employee e " +
+            "LEFT JOIN r.benefit b " +
+            "LEFT JOIN r.document d " +
+            "WHERE r.report.id = :reportId " +
+            "AND r.id > :lastId " +
+            "ORDER BY r.id")
+    List<ReportEntryExportRow> findPageByReportIdAfter(@Param("reportId") Long reportId,
+                                                       @Param("lastId") Long lastId,
+                                                       Pageable pageable);
 }
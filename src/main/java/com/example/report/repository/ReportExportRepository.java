@@ -0,0 +1,164 @@
+package com.example.report.repository;
+
+import com.example.report.config.ReportExportProperties;
+import com.example.report.model.Benefit;
+import com.example.report.model.Employee;
+import com.example.report.model.EmployeeBenefitTotals;
+import com.example.report.model.ReportEntryExportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read path of streamed exports. Rows are fetched through a database cursor of report.export.fetch-size
+ * rows and handed to the consumer one by one, so no result set is held in memory. The PostgreSQL driver
+ * only uses a cursor inside a transaction, hence the read-only transactions.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReportExportRepository {
+
+    private static final String ENTRIES_SQL = "SELECT r.id, r.report_id, r.employee_id, e.first_name, e.last_name, " +
+            "r.benefit_id, b.name, b.benefit_type_name, r.document_id, d.effective_date, " +
+            "r.gross_amount, r.net_amount, r.pensions_fund, r.personal_income_tax " +
+            "FROM report_entry r " +
+            "LEFT JOIN employee e ON e.id = r.employee_id " +
+            "LEFT JOIN benefit b ON b.id = r.benefit_id " +
+            "LEFT JOIN documents d ON d.id = r.document_id " +
+            "WHERE r.report_id = ? " +
+            "ORDER BY r.id";
+    private static final String ENTRY_AMOUNTS_SQL = "SELECT r.id, r.report_id, r.employee_id, r.benefit_id, r.document_id, " +
+            "r.gross_amount, r.net_amount, r.pensions_fund, r.personal_income_tax " +
+            "FROM report_entry r " +
+            "WHERE r.report_id = ? " +
+            "ORDER BY r.id";
+    private static final String EMPLOYEES_SQL = "SELECT e.id, e.first_name, e.last_name, e.department, e.positions, e.email, " +
+            "e.is_active, e.is_pensions_payer " +
+            "FROM employee e " +
+            "WHERE e.id IN (SELECT t.employee_id FROM report_employee_totals t WHERE t.report_id = ?) " +
+            "ORDER BY e.id";
+    private static final String BENEFITS_SQL = "SELECT b.id, b.name, b.benefit_type_name, b.calculation_method_name " +
+            "FROM benefit b " +
+            "WHERE b.id IN (SELECT t.benefit_id FROM report_employee_totals t WHERE t.report_id = ?) " +
+            "ORDER BY b.id";
+    private static final String EMPLOYEE_BENEFIT_TOTALS_SQL = "SELECT e.id, e.first_name, e.last_name, e.department, e.positions, e.email, " +
+            "t.benefit_id, t.gross_amount, t.pensions_fund, t.personal_income_tax, t.net_amount " +
+            "FROM report_employee_totals t " +
+            "JOIN employee e ON e.id = t.employee_id " +
+            "WHERE t.report_id = ? " +
+            "ORDER BY e.id, t.benefit_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReportExportProperties reportExportProperties;
+
+    private void queryWithCursor(String sql, Long reportId, RowCallbackHandler rowCallbackHandler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(reportExportProperties.getFetchSize());
+            preparedStatement.setLong(1, reportId);
+            return preparedStatement;
+        }, rowCallbackHandler);
+    }
+
+    private static Long getNullableLong(ResultSet resultSet, String column) throws SQLException {
+        long value = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    @Transactional(readOnly = true)
+    public void streamEntries(Long reportId, Consumer<ReportEntryExportRow> consumer) {
+        queryWithCursor(ENTRIES_SQL, reportId, resultSet -> consumer.accept(ReportEntryExportRow.builder()
+                .id(resultSet.getLong("id"))
+                .reportId(resultSet.getLong("report_id"))
+                .employeeId(getNullableLong(resultSet, "employee_id"))
+                .firstName(resultSet.getString("first_name"))
+                .lastName(resultSet.getString("last_name"))
+                .benefitId(getNullableLong(resultSet, "benefit_id"))
+                .benefitName(resultSet.getString("name"))
+                .benefitTypeName(resultSet.getString("benefit_type_name"))
+                .documentId(getNullableLong(resultSet, "document_id"))
+                .effectiveDate(resultSet.getObject("effective_date", LocalDate.class))
+                .grossAmount(resultSet.getBigDecimal("gross_amount"))
+                .netAmount(resultSet.getBigDecimal("net_amount"))
+                .pensionsFund(resultSet.getBigDecimal("pensions_fund"))
+                .personalIncomeTax(resultSet.getBigDecimal("personal_income_tax"))
+                .build()));
+    }
+
+    /**
+     * Streams the entries of a report with only their references and amounts, no joined columns.
+     */
+    @Transactional(readOnly = true)
+    public void streamEntryAmounts(Long reportId, Consumer<ReportEntryExportRow> consumer) {
+        queryWithCursor(ENTRY_AMOUNTS_SQL, reportId, resultSet -> consumer.accept(ReportEntryExportRow.builder()
+                .id(resultSet.getLong("id"))
+                .reportId(resultSet.getLong("report_id"))
+                .employeeId(getNullableLong(resultSet, "employee_id"))
+                .benefitId(getNullableLong(resultSet, "benefit_id"))
+                .documentId(getNullableLong(resultSet, "document_id"))
+                .grossAmount(resultSet.getBigDecimal("gross_amount"))
+                .netAmount(resultSet.getBigDecimal("net_amount"))
+                .pensionsFund(resultSet.getBigDecimal("pensions_fund"))
+                .personalIncomeTax(resultSet.getBigDecimal("personal_income_tax"))
+                .build()));
+    }
+
+    public List<Employee> findEmployeesByReportId(Long reportId) {
+        return jdbcTemplate.query(EMPLOYEES_SQL, (resultSet, rowNum) -> new Employee(
+                resultSet.getLong("id"),
+                resultSet.getString("first_name"),
+                resultSet.getString("last_name"),
+                resultSet.getString("department"),
+                resultSet.getString("positions"),
+                resultSet.getString("email"),
+                resultSet.getObject("is_active", Boolean.class),
+                resultSet.getObject("is_pensions_payer", Boolean.class)), reportId);
+    }
+
+    public List<Benefit> findBenefitsByReportId(Long reportId) {
+        return jdbcTemplate.query(BENEFITS_SQL, (resultSet, rowNum) -> new Benefit(
+                resultSet.getLong("id"),
+                resultSet.getString("name"),
+                resultSet.getString("benefit_type_name"),
+                resultSet.getString("calculation_method_name")), reportId);
+    }
+
+    /**
+     * Streams the summed amounts of every employee and benefit of the report, ordered by employee,
+     * so all rows of one employee arrive together. The sums are read from report_employee_totals,
+     * which triggers on report_entry keep current in the transaction that inserts or deletes entries.
+     */
+    @Transactional(readOnly = true)
+    public void streamEmployeeBenefitTotals(Long reportId, Consumer<EmployeeBenefitTotals> consumer) {
+        queryWithCursor(EMPLOYEE_BENEFIT_TOTALS_SQL, reportId, resultSet -> consumer.accept(mapEmployeeBenefitTotals(resultSet)));
+    }
+
+    public List<EmployeeBenefitTotals> findEmployeeBenefitTotals(Long reportId) {
+        return jdbcTemplate.query(EMPLOYEE_BENEFIT_TOTALS_SQL, (resultSet, rowNum) -> mapEmployeeBenefitTotals(resultSet), reportId);
+    }
+
+    private static EmployeeBenefitTotals mapEmployeeBenefitTotals(ResultSet resultSet) throws SQLException {
+        return EmployeeBenefitTotals.builder()
+                .employeeId(resultSet.getLong("id"))
+                .firstName(resultSet.getString("first_name"))
+                .lastName(resultSet.getString("last_name"))
+                .department(resultSet.getString("department"))
+                .positions(resultSet.getString("positions"))
+                .email(resultSet.getString("email"))
+                .benefitId(resultSet.getLong("benefit_id"))
+                .grossAmount(resultSet.getBigDecimal("gross_amount"))
+                .pensionsFund(resultSet.getBigDecimal("pensions_fund"))
+                .personalIncomeTax(resultSet.getBigDecimal("personal_income_tax"))
+                .netAmount(resultSet.getBigDecimal("net_amount"))
+                .build();
+    }
+}
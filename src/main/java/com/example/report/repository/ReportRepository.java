@@ -1,7 +1,38 @@
 package com.example.report.repository;
 
 import com.example.report.model.Report;
+import com.example.report.model.ReportDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 public interface ReportRepository extends JpaRepository<Report, Long> {
+
+    List<Report> findAllByStartDateGreaterThanEqualAndEndDateLessThanEqualOrderById(LocalDate from, LocalDate to);
+
+    /**
+     * Version of what the exports of a report show. Triggers move content_updated_at whenever entries of the
+     * report are written or the employees and benefits they refer to change.
+     */
+    @Query(value = "SELECT to_char(content_updated_at, 'YYYYMMDDHH24MISSUS') FROM report WHERE id = :reportId", nativeQuery = true)
+    Optional<String> findContentVersionById(@Param("reportId") Long reportId);
+
+    @Query("SELECT new com.example.report.model.ReportDTO(r.id, r.startDate, r.endDate) FROM Report r " +
+            "WHERE r.id > :lastId " +
+            "ORDER BY r.id")
+    List<ReportDTO> findPageAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    @Query("SELECT new com.example.report.model.ReportDTO(r.id, r.startDate, r.endDate) FROM Report r " +
+            "WHERE r.startDate >= :from AND r.endDate <= :to " +
+            "AND r.id > :lastId " +
+            "ORDER BY r.id")
+    List<ReportDTO> findPageWithinPeriodAfter(@Param("from") LocalDate from,
+                                              @Param("to") LocalDate to,
+                                              @Param("lastId") Long lastId,
+                                              Pageable pageable);
 }
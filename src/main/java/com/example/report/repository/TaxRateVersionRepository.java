@@ -0,0 +1,13 @@
+package com.example.report.repository;
+
+import com.example.report.model.TaxRateVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TaxRateVersionRepository extends JpaRepository<TaxRateVersion, Long> {
+    List<TaxRateVersion> findAllByOrderByEffectiveFrom();
+
+    boolean existsByEffectiveFrom(LocalDate effectiveFrom);
+}
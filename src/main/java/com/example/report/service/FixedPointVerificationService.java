@@ -0,0 +1,119 @@
+package com.example.report.service;
+
+import com.example.report.calculation.CalculatedAmounts;
+import com.example.report.calculation.FixedPointAmounts;
+import com.example.report.calculation.MinorUnits;
+import com.example.report.calculation.TaxCalculator;
+import com.example.report.config.ReportGenerationProperties;
+import com.example.report.model.Benefit;
+import com.example.report.model.Document;
+import com.example.report.model.Employee;
+import com.example.report.model.FixedPointVerificationDTO;
+import com.example.report.repository.BenefitRepository;
+import com.example.report.repository.DocumentRepository;
+import com.example.report.repository.EmployeeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs both the BigDecimal and the fixed-point calculation over the documents of a period and compares
+ * the results as they end up in the database (rounded HALF_UP to cents), per document and in total.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FixedPointVerificationService {
+
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    private final DocumentRepository documentRepository;
+    private final EmployeeRepository employeeRepository;
+    private final BenefitRepository benefitRepository;
+    private final TaxCalculator taxCalculator;
+    private final ReportGenerationProperties reportGenerationProperties;
+    private final EntityManager entityManager;
+
+    private static boolean sameInCents(BigDecimal bigDecimalAmount, long minorUnits) {
+        return bigDecimalAmount.setScale(MinorUnits.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact() == minorUnits;
+    }
+
+    public FixedPointVerificationDTO verify(LocalDate from, LocalDate to) {
+        ReferenceDataSnapshot referenceData = ReferenceDataSnapshot.of(
+                employeeRepository.findAllReferencedByDocumentsEffectiveBetween(from, to),
+                benefitRepository.findAllReferencedByDocumentsEffectiveBetween(from, to));
+        int chunkSize = reportGenerationProperties.getChunkSize();
+        Pageable chunk = PageRequest.of(0, chunkSize);
+
+        CalculatedAmounts bigDecimalAmounts = new CalculatedAmounts();
+        FixedPointAmounts fixedPointAmounts = new FixedPointAmounts();
+        BigDecimal bigDecimalNetTotal = BigDecimal.ZERO;
+        BigDecimal bigDecimalGrossTotal = BigDecimal.ZERO;
+        long fixedPointNetTotal = 0;
+        long fixedPointGrossTotal = 0;
+        long documentsChecked = 0;
+        long mismatchedDocuments = 0;
+        List<Long> mismatchedDocumentIds = new ArrayList<>();
+
+        List<Document> documentEntries = documentRepository.findChunkByEffectiveDateBetween(from, to, chunk);
+        while (!documentEntries.isEmpty()) {
+            for (Document document : documentEntries) {
+                Employee employee = referenceData.getEmployee(document.getEmployeeId());
+                Benefit benefit = referenceData.getBenefit(document.getBenefitId());
+                taxCalculator.calculate(document.getEffectiveDate(), document.getAmount(), employee, benefit, bigDecimalAmounts);
+                taxCalculator.calculate(document.getEffectiveDate(), MinorUnits.fromBigDecimal(document.getAmount()), employee, benefit, fixedPointAmounts);
+
+                boolean identical = sameInCents(bigDecimalAmounts.getNetAmount(), fixedPointAmounts.getNetAmount())
+                        && sameInCents(bigDecimalAmounts.getPensionsFund(), fixedPointAmounts.getPensionsFund())
+                        && sameInCents(bigDecimalAmounts.getPersonalIncomeTax(), fixedPointAmounts.getPersonalIncomeTax())
+                        && sameInCents(bigDecimalAmounts.getGrossAmount(), fixedPointAmounts.getGrossAmount());
+                if (!identical) {
+                    mismatchedDocuments++;
+                    if (mismatchedDocumentIds.size() < MAX_REPORTED_MISMATCHES) {
+                        mismatchedDocumentIds.add(document.getId());
+                    }
+                }
+
+                bigDecimalNetTotal = bigDecimalNetTotal.add(bigDecimalAmounts.getNetAmount().setScale(MinorUnits.SCALE, RoundingMode.HALF_UP));
+                bigDecimalGrossTotal = bigDecimalGrossTotal.add(bigDecimalAmounts.getGrossAmount().setScale(MinorUnits.SCALE, RoundingMode.HALF_UP));
+                fixedPointNetTotal = Math.addExact(fixedPointNetTotal, fixedPointAmounts.getNetAmount());
+                fixedPointGrossTotal = Math.addExact(fixedPointGrossTotal, fixedPointAmounts.getGrossAmount());
+                documentsChecked++;
+            }
+
+            if (documentEntries.size() < chunkSize) {
+                break;
+            }
+            Document lastDocument = documentEntries.get(documentEntries.size() - 1);
+            entityManager.clear();
+            documentEntries = documentRepository.findChunkByEffectiveDateBetweenAfter(from, to, lastDocument.getEffectiveDate(), lastDocument.getId(), chunk);
+        }
+
+        boolean identical = mismatchedDocuments == 0
+                && sameInCents(bigDecimalNetTotal, fixedPointNetTotal)
+                && sameInCents(bigDecimalGrossTotal, fixedPointGrossTotal);
+        log.info("Fixed-point verification for {} - {}: {} documents checked, {} mismatched", from, to, documentsChecked, mismatchedDocuments);
+
+        return FixedPointVerificationDTO.builder()
+                .startDate(from)
+                .endDate(to)
+                .documentsChecked(documentsChecked)
+                .mismatchedDocuments(mismatchedDocuments)
+                .mismatchedDocumentIds(mismatchedDocumentIds)
+                .bigDecimalNetTotal(bigDecimalNetTotal)
+                .fixedPointNetTotal(MinorUnits.toBigDecimal(fixedPointNetTotal))
+                .bigDecimalGrossTotal(bigDecimalGrossTotal)
+                .fixedPointGrossTotal(MinorUnits.toBigDecimal(fixedPointGrossTotal))
+                .identical(identical)
+                .build();
+    }
+}
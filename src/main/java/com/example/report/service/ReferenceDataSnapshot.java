@@ -0,0 +1,60 @@
+package com.example.report.service;
+
+import com.example.report.model.Benefit;
+import com.example.report.model.Employee;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Employees and benefits referenced by one generation run, indexed by id.
+ * Loaded once per run so that calculating a document never hits the database.
+ */
+public class ReferenceDataSnapshot {
+
+    private final Map<Long, Employee> employeesById;
+    private final Map<Long, Benefit> benefitsById;
+
+    private ReferenceDataSnapshot(Map<Long, Employee> employeesById, Map<Long, Benefit> benefitsById) {
+        this.employeesById = employeesById;
+        this.benefitsById = benefitsById;
+    }
+
+    public static ReferenceDataSnapshot of(Collection<Employee> employees, Collection<Benefit> benefits) {
+        Map<Long, Employee> employeesById = new HashMap<>(employees.size() * 2);
+        for (Employee employee : employees) {
+            employeesById.put(employee.getId(), employee);
+        }
+        Map<Long, Benefit> benefitsById = new HashMap<>(benefits.size() * 2);
+        for (Benefit benefit : benefits) {
+            benefitsById.put(benefit.getId(), benefit);
+        }
+        return new ReferenceDataSnapshot(employeesById, benefitsById);
+    }
+
+    public Employee getEmployee(Long employeeId) {
+        Employee employee = employeesById.get(employeeId);
+        if (employee == null) {
+            throw new EntityNotFoundException(String.format("Employee with id %s not found", employeeId));
+        }
+        return employee;
+    }
+
+    public Benefit getBenefit(Long benefitId) {
+        Benefit benefit = benefitsById.get(benefitId);
+        if (benefit == null) {
+            throw new EntityNotFoundException(String.format("Benefit with id %s not found", benefitId));
+        }
+        return benefit;
+    }
+
+    public int employeeCount() {
+        return employeesById.size();
+    }
+
+    public int benefitCount() {
+        return benefitsById.size();
+    }
+}
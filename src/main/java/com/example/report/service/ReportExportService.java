@@ -0,0 +1,158 @@
+package com.example.report.service;
+
+import com.example.report.config.ReportExportProperties;
+import com.example.report.export.ExportArtifact;
+import com.example.report.export.ExportArtifactCache;
+import com.example.report.model.Report;
+import com.example.report.repository.ReportRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Serves rendered exports from the {@link ExportArtifactCache}. A register is rendered once per content version
+ * of its report, which changes with the entries and the employees and benefits they show, and repeat downloads
+ * read the stored file.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportExportService {
+
+    private static final String PAYROLL_REGISTER = "Payroll_Register";
+    private static final String XLSX = "xlsx";
+    private static final String XLSX_PRECOMPUTED = "xlsx-precomputed";
+
+    private final ReportService reportService;
+    private final ExportArtifactCache exportArtifactCache;
+    private final ReportExportProperties reportExportProperties;
+    private final ReportRepository reportRepository;
+    private final ThreadPoolTaskExecutor reportExportExecutor;
+
+    public ExportArtifact getPayrollRegister(Long reportId) throws IOException {
+        String format = reportExportProperties.isPrecomputedTotals() ? XLSX_PRECOMPUTED : XLSX;
+        String contentVersion = reportRepository.findContentVersionById(reportId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, String.format("Report %s not found", reportId)));
+        return exportArtifactCache.getOrCreate(reportId, format, contentVersion, outputStream -> {
+            Workbook workbook = reportService.extractReportEntriesByReportId(reportId);
+            try {
+                workbook.write(outputStream);
+            } finally {
+                ((SXSSFWorkbook) workbook).dispose();
+                workbook.close();
+            }
+        });
+    }
+
+    public List<Long> findReportIds(List<Long> reportIds, LocalDate from, LocalDate to) {
+        if (reportIds != null && !reportIds.isEmpty()) {
+            List<Long> distinctReportIds = reportIds.stream().distinct().collect(Collectors.toList());
+            Set<Long> existingReportIds = reportRepository.findAllById(distinctReportIds).stream()
+                    .map(Report::getId)
+                    .collect(Collectors.toSet());
+            List<Long> missingReportIds = distinctReportIds.stream()
+                    .filter(reportId -> !existingReportIds.contains(reportId))
+                    .collect(Collectors.toList());
+            // Checked before the archive is started, since a failed entry could only truncate the streamed ZIP
+            if (!missingReportIds.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, String.format("Reports %s not found", missingReportIds));
+            }
+            return distinctReportIds;
+        }
+        if (from == null || to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either report ids or a start and end date are required");
+        }
+        return reportRepository.findAllByStartDateGreaterThanEqualAndEndDateLessThanEqualOrderById(from, to).stream()
+                .map(Report::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes the payroll registers of the reports into a ZIP archive. Registers are rendered on the bounded
+     * report export pool and each one is added to the archive as soon as it is ready, from its stored file.
+     */
+    public void writePayrollRegisterArchive(List<Long> reportIds, OutputStream outputStream) throws IOException {
+        CompletionService<Map.Entry<Long, ExportArtifact>> completionService = new ExecutorCompletionService<>(reportExportExecutor);
+        List<Future<Map.Entry<Long, ExportArtifact>>> futures = reportIds.stream()
+                .map(reportId -> completionService.submit(() -> Map.entry(reportId, getPayrollRegister(reportId))))
+                .collect(Collectors.toList());
+
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Map.Entry<Long, ExportArtifact> rendered = completionService.take().get();
+                readPayrollRegister(rendered.getKey(), rendered.getValue(), (artifact, channel) -> {
+                    zipOutputStream.putNextEntry(new ZipEntry(String.format("%s_%s.xlsx", PAYROLL_REGISTER, rendered.getKey())));
+                    Channels.newInputStream(channel).transferTo(zipOutputStream);
+                    zipOutputStream.closeEntry();
+                    zipOutputStream.flush();
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Payroll register archive was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Payroll register rendering failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        zipOutputStream.finish();
+        log.info("Wrote payroll register archive of {} reports", reportIds.size());
+    }
+
+    @FunctionalInterface
+    public interface ArtifactReader {
+        void read(ExportArtifact artifact, FileChannel channel) throws IOException;
+    }
+
+    /**
+     * Hands the stored file of the artifact to the reader through a channel opened once. Storing a newer
+     * version removes the older files, which an open channel keeps reading. A file removed before it could
+     * be opened is looked up again, which finds or renders the current version.
+     */
+    private void readPayrollRegister(Long reportId, ExportArtifact artifact, ArtifactReader reader) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(artifact.getFile(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            artifact = getPayrollRegister(reportId);
+            channel = FileChannel.open(artifact.getFile(), StandardOpenOption.READ);
+        }
+        try (FileChannel opened = channel) {
+            reader.read(artifact, opened);
+        }
+    }
+
+    public void readPayrollRegister(Long reportId, ArtifactReader reader) throws IOException {
+        readPayrollRegister(reportId, getPayrollRegister(reportId), reader);
+    }
+}
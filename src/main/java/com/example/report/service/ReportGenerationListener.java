@@ -0,0 +1,16 @@
+package com.example.report.service;
+
+/**
+ * Receives progress of a chunked report generation run.
+ */
+public interface ReportGenerationListener {
+
+    ReportGenerationListener NONE = new ReportGenerationListener() {
+    };
+
+    default void onReportCreated(Long reportId) {
+    }
+
+    default void onChunkProcessed(int documentCount) {
+    }
+}
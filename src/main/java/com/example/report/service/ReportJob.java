@@ -0,0 +1,100 @@
+package com.example.report.service;
+
+import com.example.report.model.ReportJobDTO;
+import com.example.report.model.ReportJobStatus;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one asynchronous generation run. Written by the job thread, read by status requests.
+ */
+@Getter
+public class ReportJob implements ReportGenerationListener {
+
+    private final UUID id = UUID.randomUUID();
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final boolean inParallel;
+    private final AtomicLong processedDocuments = new AtomicLong();
+
+    private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+    private volatile long totalDocuments;
+    private volatile Long reportId;
+    private volatile String errorMessage;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public ReportJob(LocalDate startDate, LocalDate endDate, boolean inParallel) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.inParallel = inParallel;
+    }
+
+    public void started(long totalDocuments) {
+        this.totalDocuments = totalDocuments;
+        this.startedAt = Instant.now();
+        this.status = ReportJobStatus.RUNNING;
+    }
+
+    public void completed() {
+        this.finishedAt = Instant.now();
+        this.status = ReportJobStatus.COMPLETED;
+    }
+
+    public void failed(Throwable exception) {
+        this.errorMessage = exception.getMessage();
+        this.finishedAt = Instant.now();
+        this.status = ReportJobStatus.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == ReportJobStatus.COMPLETED || status == ReportJobStatus.FAILED;
+    }
+
+    public boolean isFinishedBefore(Instant instant) {
+        Instant finished = finishedAt;
+        return isFinished() && finished != null && finished.isBefore(instant);
+    }
+
+    @Override
+    public void onReportCreated(Long reportId) {
+        this.reportId = reportId;
+    }
+
+    @Override
+    public void onChunkProcessed(int documentCount) {
+        processedDocuments.addAndGet(documentCount);
+    }
+
+    private double documentsPerSecond() {
+        Instant started = startedAt;
+        if (started == null) {
+            return 0;
+        }
+        Instant finished = finishedAt;
+        long elapsedMillis = Duration.between(started, finished == null ? Instant.now() : finished).toMillis();
+        return elapsedMillis == 0 ? 0 : processedDocuments.get() * 1000.0 / elapsedMillis;
+    }
+
+    public ReportJobDTO toDto() {
+        return ReportJobDTO.builder()
+                .id(id)
+                .status(status)
+                .startDate(startDate)
+                .endDate(endDate)
+                .inParallel(inParallel)
+                .totalDocuments(totalDocuments)
+                .processedDocuments(processedDocuments.get())
+                .documentsPerSecond(documentsPerSecond())
+                .reportId(reportId)
+                .errorMessage(errorMessage)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
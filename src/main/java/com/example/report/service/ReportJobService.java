@@ -0,0 +1,86 @@
+package com.example.report.service;
+
+import com.example.report.config.ReportGenerationProperties;
+import com.example.report.model.ReportDTO;
+import com.example.report.model.ReportJobDTO;
+import com.example.report.repository.DocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportJobService {
+
+    private final ReportService reportService;
+    private final DocumentRepository documentRepository;
+    private final ThreadPoolTaskExecutor reportJobExecutor;
+    private final ReportGenerationProperties reportGenerationProperties;
+    private final Map<UUID, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    private void runJob(ReportJob job) {
+        try {
+            job.started(documentRepository.countByEffectiveDateBetween(job.getStartDate(), job.getEndDate()));
+            ReportDTO reportDTO = job.isInParallel()
+                    ? reportService.generateReportInParallel(job.getStartDate(), job.getEndDate(), job)
+                    : reportService.generateReportInChunks(job.getStartDate(), job.getEndDate(), job);
+            job.completed();
+            log.info("Report job {} completed: report {} with {} documents", job.getId(), reportDTO.getId(), job.getProcessedDocuments().get());
+        } catch (Throwable e) {
+            // Errors fail the job too, otherwise it would stay RUNNING for good
+            job.failed(e);
+            log.error("Report job {} failed", job.getId(), e);
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant retainedSince = Instant.now().minus(reportGenerationProperties.getJobRetention());
+        jobs.values().removeIf(job -> job.isFinishedBefore(retainedSince));
+    }
+
+    public ReportJobDTO submitJob(LocalDate from, LocalDate to, boolean inParallel) {
+        evictFinishedJobs();
+        ReportJob job = new ReportJob(from, to, inParallel);
+        jobs.put(job.getId(), job);
+        try {
+            reportJobExecutor.execute(() -> runJob(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Report job queue is full, try again later");
+        }
+        return job.toDto();
+    }
+
+    public ReportJobDTO getJob(UUID jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, String.format("Report job %s not found", jobId));
+        }
+        return job.toDto();
+    }
+
+    public List<ReportJobDTO> getAllJobs() {
+        evictFinishedJobs();
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ReportJob::getStartedAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(ReportJob::toDto)
+                .collect(Collectors.toList());
+    }
+}
@@ -1,493 +1,320 @@
 package com.example.report.service;
 
+import com.example.report.calculation.CalculatedAmounts;
+import com.example.report.calculation.TaxCalculator;
+import com.example.report.config.ReportExportProperties;
+import com.example.report.config.ReportGenerationProperties;
+import com.example.report.export.ListOfReportsExporter;
+import com.example.report.export.PayrollRegisterAggregator;
+import com.example.report.export.PayrollRegisterExporter;
+import com.example.report.export.PayrollRegisterMatrix;
 import com.example.report.model.*;
 import com.example.report.repository.*;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.hssf.util.HSSFColor;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ReportService {
 
-    private static final String NET_AMOUNT = "netAmount";
-    private static final String PENSIONS_FUND = "pensionsFund";
-    private static final String PERSONAL_INCOME_TAX = "personalIncomeTax";
-    private static final String GROSS_AMOUNT = "grossAmount";
     private static final String ACCRUAL = "Accrual";
-    private static final String GROSS = "Gross";
-    private static final String NET = "Net";
     private static final String DEDUCTION = "Deduction";
-    private static final String ARIAL = "Arial";
 
     private final DocumentRepository documentRepository;
     private final EmployeeRepository employeeRepository;
     private final BenefitRepository benefitRepository;
     private final ReportRepository reportRepository;
     private final ReportEntryRepository reportEntryRepository;
+    private final ReportEntryBatchRepository reportEntryBatchRepository;
     private final ReportEntryMapper reportEntryMapper;
     private final ReportMapper reportMapper;
-
-    private Map<String, BigDecimal> calculator(BigDecimal amount, Employee employee, Benefit benefit) {
-        Map<String, BigDecimal> calculatedNumbers = new HashMap<>();
-
-        boolean isActive = employee.getIsActive();
-        boolean isPensionsPayer = employee.getIsPensionsPayer();
-        String benefitType = benefit.getBenefitTypeName();
-        String calculationMethod = benefit.getCalculationMethodName();
-
-        if (!isActive) {
-            calculatedNumbers.put(NET_AMOUNT, BigDecimal.ZERO);
-            calculatedNumbers.put(PENSIONS_FUND, BigDecimal.ZERO);
-            calculatedNumbers.put(PERSONAL_INCOME_TAX, BigDecimal.ZERO);
-            calculatedNumbers.put(GROSS_AMOUNT, BigDecimal.ZERO);
-        } else if (isPensionsPayer && benefitType.equals(ACCRUAL) && calculationMethod.equals(GROSS)) {
-            calculatedNumbers.put(NET_AMOUNT, amount.multiply(BigDecimal.valueOf(0.784)));
-            calculatedNumbers.put(PENSIONS_FUND, amount.multiply(BigDecimal.valueOf(0.02)));
-            calculatedNumbers.put(PERSONAL_INCOME_TAX, amount.multiply(BigDecimal.valueOf(0.196)));
-            calculatedNumbers.put(GROSS_AMOUNT, amount);
-        } else if (isPensionsPayer && benefitType.equals(ACCRUAL) && calculationMethod.equals(NET)) {
-            calculatedNumbers.put(NET_AMOUNT, amount);
-            calculatedNumbers.put(PENSIONS_FUND, amount.multiply((BigDecimal.valueOf(0.02).divide(BigDecimal.valueOf(0.784), RoundingMode.HALF_UP))));
-            calculatedNumbers.put(PERSONAL_INCOME_TAX, amount.multiply(BigDecimal.valueOf(0.25)));
-            calculatedNumbers.put(GROSS_AMOUNT, amount.divide(BigDecimal.valueOf(0.784), RoundingMode.HALF_UP));
-        } else if (!isPensionsPayer && benefitType.equals(ACCRUAL) && calculationMethod.equals(GROSS)) {
-            calculatedNumbers.put(NET_AMOUNT, amount.multiply(BigDecimal.valueOf(0.8)));
-            calculatedNumbers.put(PENSIONS_FUND, BigDecimal.ZERO);
-            calculatedNumbers.put(PERSONAL_INCOME_TAX, amount.multiply(BigDecimal.valueOf(0.2)));
-            calculatedNumbers.put(GROSS_AMOUNT, amount);
-        } else if (!isPensionsPayer && benefitType.equals(ACCRUAL) && calculationMethod.equals(NET)) {
-            calculatedNumbers.put(NET_AMOUNT, amount);
-            calculatedNumbers.put(PENSIONS_FUND, BigDecimal.ZERO);
-            calculatedNumbers.put(PERSONAL_INCOME_TAX, amount.multiply(BigDecimal.valueOf(0.25)));
-            calculatedNumbers.put(GROSS_AMOUNT, amount.divide(BigDecimal.valueOf(0.8), RoundingMode.HALF_UP));
-        } else {
-            calculatedNumbers.put(NET_AMOUNT, amount);
-            calculatedNumbers.put(PENSIONS_FUND, BigDecimal.ZERO);
-            calculatedNumbers.put(PERSONAL_INCOME_TAX, BigDecimal.ZERO);
-            calculatedNumbers.put(GROSS_AMOUNT, amount);
-        }
-        return calculatedNumbers;
+    private final ReportGenerationProperties reportGenerationProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ForkJoinPool reportCalculationPool;
+    private final TaxCalculator taxCalculator;
+    private final PayrollRegisterExporter payrollRegisterExporter;
+    private final ListOfReportsExporter listOfReportsExporter;
+    private final ReportExportRepository reportExportRepository;
+    private final ReportExportProperties reportExportProperties;
+
+    private ReferenceDataSnapshot loadReferenceData(LocalDate from, LocalDate to) {
+        ReferenceDataSnapshot referenceData = ReferenceDataSnapshot.of(
+                employeeRepository.findAllReferencedByDocumentsEffectiveBetween(from, to),
+                benefitRepository.findAllReferencedByDocumentsEffectiveBetween(from, to));
+        log.info("Loaded {} employees and {} benefits for period {} - {}", referenceData.employeeCount(), referenceData.benefitCount(), from, to);
+        return referenceData;
     }
 
-    private ReportEntry documentEntryToReportEntry(Document document, Report report) {
-        Employee employee = employeeRepository.getReferenceById(document.getEmployeeId());
-        Benefit benefit = benefitRepository.getReferenceById(document.getBenefitId());
-        Map<String, BigDecimal> calculatedNumbers = calculator(document.getAmount(), employee, benefit);
+    private ReportEntry documentEntryToReportEntry(Document document, Report report, ReferenceDataSnapshot referenceData) {
+        Employee employee = referenceData.getEmployee(document.getEmployeeId());
+        Benefit benefit = referenceData.getBenefit(document.getBenefitId());
+        CalculatedAmounts calculatedAmounts = reportGenerationProperties.isFixedPointArithmetic()
+                ? taxCalculator.calculateInMinorUnits(document.getEffectiveDate(), document.getAmount(), employee, benefit)
+                : taxCalculator.calculate(document.getEffectiveDate(), document.getAmount(), employee, benefit);
         return ReportEntry.builder()
                 .employee(employee)
                 .benefit(benefit)
                 .document(document)
-                .netAmount(calculatedNumbers.get(NET_AMOUNT))
-                .pensionsFund(calculatedNumbers.get(PENSIONS_FUND))
-                .personalIncomeTax(calculatedNumbers.get(PERSONAL_INCOME_TAX))
-                .grossAmount(calculatedNumbers.get(GROSS_AMOUNT))
+                .netAmount(calculatedAmounts.getNetAmount())
+                .pensionsFund(calculatedAmounts.getPensionsFund())
+                .personalIncomeTax(calculatedAmounts.getPersonalIncomeTax())
+                .grossAmount(calculatedAmounts.getGrossAmount())
                 .report(report)
                 .build();
     }
 
-    private void applyCommonSheetStyleForListOfReportsFile(Sheet sheet) {
-        sheet.autoSizeColumn(0);
-        sheet.autoSizeColumn(1);
-        sheet.autoSizeColumn(2);
-        sheet.autoSizeColumn(3);
-        sheet.createFreezePane(0, 1);
-        sheet.setDisplayGridlines(false);
-        sheet.setZoom(130);
+    // Repeatable read keeps the benefit columns and the totals on one snapshot while a regeneration commits
+    private PayrollRegisterMatrix aggregatePayrollRegisterInDatabase(Long reportId) {
+        TransactionTemplate snapshotTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshotTransactionTemplate.setReadOnly(true);
+        snapshotTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return snapshotTransactionTemplate.execute(status -> {
+            List<Benefit> benefits = reportExportRepository.findBenefitsByReportId(reportId);
+            PayrollRegisterAggregator aggregator = new PayrollRegisterAggregator(
+                    benefits.stream().filter(benefit -> ACCRUAL.equals(benefit.getBenefitTypeName())).collect(Collectors.toList()),
+                    benefits.stream().filter(benefit -> DEDUCTION.equals(benefit.getBenefitTypeName())).collect(Collectors.toList()));
+            reportExportRepository.streamEmployeeBenefitTotals(reportId, totals -> aggregator.add(
+                    Employee.builder()
+                            .id(totals.getEmployeeId())
+                            .firstName(totals.getFirstName())
+                            .lastName(totals.getLastName())
+                            .department(totals.getDepartment())
+                            .positions(totals.getPositions())
+                            .email(totals.getEmail())
+                            .build(),
+                    totals.getBenefitId(), totals.getGrossAmount(), totals.getPensionsFund(), totals.getPersonalIncomeTax()));
+            return aggregator.toMatrix();
+        });
     }
 
-    private void applyHeaderCellStyleForListOfReportsFile(Workbook workbook, Sheet sheet) {
-        CellStyle headerStyle = workbook.createCellStyle();
-        XSSFFont font = ((XSSFWorkbook) workbook).createFont();
-        font.setFontName(ARIAL);
-        font.setFontHeightInPoints((short) 11);
-        font.setBold(true);
-        font.setColor(HSSFColor.HSSFColorPredefined.WHITE.getIndex());
-        headerStyle.setFillForegroundColor(IndexedColors.TEAL.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        headerStyle.setFont(font);
-        headerStyle.setAlignment(HorizontalAlignment.CENTER);
-        headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        headerStyle.setBorderBottom(BorderStyle.THIN);
-        headerStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
-        headerStyle.setWrapText(true);
-
-        Row header = sheet.createRow(0);
-        Cell headerCell = header.createCell(0);
-        headerCell.setCellValue("Report ID");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(1);
-        headerCell.setCellValue("Start date");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(2);
-        headerCell.setCellValue("End date");
-        headerCell.setCellStyle(headerStyle);
+    // Only loading happens in the read-only transaction, rendering runs after its connection is released
+    public Workbook extractReportEntriesByReportId(Long reportId) {
+        if (reportExportProperties.isDatabaseAggregation()) {
+            return payrollRegisterExporter.export(reportId, aggregatePayrollRegisterInDatabase(reportId));
+        }
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransactionTemplate.setReadOnly(true);
+        List<ReportEntry> reportEntries = readOnlyTransactionTemplate.execute(status -> reportEntryRepository.findAllWithAssociationsByReportId(reportId));
+        return payrollRegisterExporter.export(reportEntries);
     }
 
-    private void applyCommonSheetStyleForPayrollRegisterFile(Sheet sheet) {
-        sheet.createFreezePane(0, 1);
-        sheet.setDisplayGridlines(false);
-        sheet.setZoom(120);
-        sheet.groupColumn(4,6);
-        sheet.setColumnHidden(0, true);
-        sheet.setColumnWidth(1,2200);
-        sheet.setColumnWidth(2,2500);
-        sheet.setColumnWidth(3,2500);
-        sheet.setColumnWidth(4,4500);
-        sheet.setColumnWidth(5,4500);
-        sheet.setColumnWidth(6,4500);
+    @Transactional(readOnly = true)
+    public List<ReportEntryDTO> getReportEntriesByReportId(Long reportId) {
+        return reportEntryMapper.entityToDto(reportEntryRepository.findAllWithAssociationsByReportId(reportId));
     }
 
-    private void applyHeaderCellStyleForPayrollRegisterFile(Workbook workbook, Sheet sheet, List<Benefit> accrualsList, List<Benefit> deductionsList) {
-        CellStyle headerStyle = workbook.createCellStyle();
-
-        XSSFFont font = ((XSSFWorkbook) workbook).createFont();
-        font.setFontName(ARIAL);
-        font.setFontHeightInPoints((short) 10);
-        font.setBold(false);
-        font.setColor(HSSFColor.HSSFColorPredefined.WHITE.getIndex());
-
-        headerStyle.setFillForegroundColor(IndexedColors.TEAL.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        headerStyle.setFont(font);
-        headerStyle.setAlignment(HorizontalAlignment.CENTER);
-        headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        headerStyle.setBorderBottom(BorderStyle.THIN);
-        headerStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
-        headerStyle.setWrapText(true);
-
-        Row header = sheet.createRow(0);
-
-        Cell headerCell = header.createCell(0);
-        headerCell.setCellValue("Report entry id");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(1);
-        headerCell.setCellValue("Employee id");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(2);
-        headerCell.setCellValue("First name");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(3);
-        headerCell.setCellValue("Last name");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(4);
-        headerCell.setCellValue("Department");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(5);
-        headerCell.setCellValue("Position");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(6);
-        headerCell.setCellValue("Email");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(7);
-        headerCell.setCellValue("Net payable amount");
-        headerCell.setCellStyle(headerStyle);
-
-        for (int i = 0; i < accrualsList.size(); i++) {
-            headerCell = header.createCell(8 + i);
-            headerCell.setCellValue(accrualsList.get(i).getName());
-            headerCell.setCellStyle(headerStyle);
+    /**
+     * Returns at most limit entries of the report with an id greater than after, as flat rows read
+     * without loading entities. The cost of a page does not depend on how far into the report it is.
+     */
+    public List<ReportEntryExportRow> getReportEntriesByReportId(Long reportId, Long after, int limit) {
+        if (limit < 1 || limit > reportExportProperties.getPageSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Limit must be between 1 and %s", reportExportProperties.getPageSize()));
         }
-
-        headerCell = header.createCell(8 + accrualsList.size());
-        headerCell.setCellValue("Total accruals");
-        headerCell.setCellStyle(headerStyle);
-
-        for (int i = 0; i < deductionsList.size(); i++) {
-            headerCell = header.createCell(9 + accrualsList.size() + i);
-            headerCell.setCellValue(deductionsList.get(i).getName());
-            headerCell.setCellStyle(headerStyle);
-        }
-
-        headerCell = header.createCell(9 + accrualsList.size() + deductionsList.size());
-        headerCell.setCellValue("Personal income tax");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(10 + accrualsList.size() + deductionsList.size());
-        headerCell.setCellValue("Pensions fund");
-        headerCell.setCellStyle(headerStyle);
-
-        headerCell = header.createCell(11 + accrualsList.size() + deductionsList.size());
-        headerCell.setCellValue("Total deductions");
-        headerCell.setCellStyle(headerStyle);
+        return reportEntryRepository.findPageByReportIdAfter(reportId, after == null ? 0 : after, PageRequest.of(0, limit));
     }
 
-    private void applySummarizingCellStyleForPayrollRegisterFile(Workbook workbook, Map<Employee, Map<String, BigDecimal>> amountsPerEmployee, List<Benefit> accrualsList, List<Benefit> deductionsList) {
-        CellStyle lastRowStyle = workbook.createCellStyle();
-
-        XSSFFont font = ((XSSFWorkbook) workbook).createFont();
-        font.setFontName(ARIAL);
-        font.setFontHeightInPoints((short) 10);
-        font.setBold(true);
-        font.setItalic(true);
-
-        lastRowStyle.setFont(font);
-        lastRowStyle.setAlignment(HorizontalAlignment.RIGHT);
-        lastRowStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        lastRowStyle.setBorderBottom(BorderStyle.DOUBLE);
-        lastRowStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
-        lastRowStyle.setWrapText(true);
-
-        Row lastRow = workbook.getSheetAt(0).createRow(amountsPerEmployee.size()+1);
-        int lastRowNum = amountsPerEmployee.size()+1;
+    public List<EmployeeBenefitTotals> getEmployeeTotalsByReportId(Long reportId) {
+        return reportExportRepository.findEmployeeBenefitTotals(reportId);
+    }
 
-        Cell cellOfLastRow;
+    public Workbook extractAllReports() {
+        return extractAllReports(null, null, null, null);
+    }
 
-        for (int i = 0; i < 7; i++) {
-            cellOfLastRow = lastRow.createCell(i);
-            cellOfLastRow.setCellStyle(lastRowStyle);
+    public Workbook extractAllReports(LocalDate from, LocalDate to, Long after, Integer limit) {
+        if ((from == null) != (to == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start and end date must be given together");
         }
-
-        for (int i = 7; i <= (11 + accrualsList.size() + deductionsList.size()); i++) {
-            String column = String.valueOf((char) (i + 65));
-            cellOfLastRow = lastRow.createCell(i);
-            cellOfLastRow.setCellFormula(String.format("sum(%s2:%s%s)",column, column, lastRowNum));
-            cellOfLastRow.setCellStyle(lastRowStyle);
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Limit must be at least 1, got %s", limit));
         }
+        return listOfReportsExporter.export(from, to, after, limit);
     }
 
-    private void writeReportDataInListOfReportsFileRows(Sheet sheet, Integer rowNumber, Report report, CellStyle numberStyle, CellStyle dateStyle) {
-        Row row = sheet.createRow(rowNumber);
-
-        Cell cell = row.createCell(0);
-        cell.setCellValue(report.getId());
-        cell.setCellStyle(numberStyle);
-
-        cell = row.createCell(1);
-        cell.setCellValue(report.getStartDate());
-        cell.setCellStyle(dateStyle);
+    public List<ReportEntryDTO> generateReportEntries(LocalDate from, LocalDate to) {
+        Report report = Report.builder()
+                .startDate(from)
+                .endDate(to)
+                .build();
+        Report savedReport = reportRepository.save(report);
 
-        cell = row.createCell(2);
-        cell.setCellValue(report.getEndDate());
-        cell.setCellStyle(dateStyle);
+        ReferenceDataSnapshot referenceData = loadReferenceData(from, to);
+        List<Document> documentEntries = documentRepository.findByEffectiveDateBetween(from, to);
+        List<ReportEntry> reportEntries = documentEntries.stream()
+                .map(document -> documentEntryToReportEntry(document, savedReport, referenceData))
+                .collect(Collectors.toList());
+        List<ReportEntry> savedReportEntries = reportEntryBatchRepository.insertAll(reportEntries);
+        return reportEntryMapper.entityToDto(savedReportEntries);
     }
 
-    private void writeReportEntryDataInPayrollRegisterFileRows(Workbook workbook, Sheet sheet, Integer rowNumber, ReportEntry reportEntry, Map.Entry<Employee, Map<String, BigDecimal>> mapEntry, List<Benefit> accrualsList, List<Benefit> deductionsList) {
-        Employee employee = mapEntry.getKey();
-        Map<String, BigDecimal> mapOfAmounts = mapEntry.getValue();
-
-        CellStyle cellNumberStyle = getCellNumberStyle(workbook);
-        CellStyle cellStringStyle = getCellStringStyle(workbook);
-
-        Row row = sheet.createRow(rowNumber - 1);
-
-        Cell cell = row.createCell(0);
-        cell.setCellValue(reportEntry.getReport().getId());
-        cell.setCellStyle(cellNumberStyle);
-
-        cell = row.createCell(1);
-        cell.setCellValue(employee.getId());
-        cell.setCellStyle(cellNumberStyle);
-
-        cell = row.createCell(2);
-        cell.setCellValue(employee.getFirstName());
-        cell.setCellStyle(cellStringStyle);
-
-        cell = row.createCell(3);
-        cell.setCellValue(employee.getLastName());
-        cell.setCellStyle(cellStringStyle);
-
-        cell = row.createCell(4);
-        cell.setCellValue(employee.getDepartment());
-        cell.setCellStyle(cellStringStyle);
-
-        cell = row.createCell(5);
-        cell.setCellValue(employee.getPositions());
-        cell.setCellStyle(cellStringStyle);
-
-        cell = row.createCell(6);
-        cell.setCellValue(employee.getEmail());
-        cell.setCellStyle(cellStringStyle);
-
-        cell = row.createCell(7);
-        char netFormulaStart = (char) (8 + 65 + accrualsList.size());
-        char netFormulaEnd = (char) (8 + 65 + 3 + accrualsList.size() + deductionsList.size());
-        cell.setCellFormula(String.format("(%s%s-%s%s)", netFormulaStart, rowNumber, netFormulaEnd, rowNumber));
-        cell.setCellStyle(cellNumberStyle);
+    public ReportDTO getReportById(Long reportId) {
+        return reportRepository.findById(reportId)
+                .map(reportMapper::entityToDto)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, String.format("Report %s not found", reportId)));
+    }
 
-        for (int i = 0; i < accrualsList.size(); i++) {
-            cell = row.createCell(8 + i);
-            cell.setCellValue(mapOfAmounts.get(accrualsList.get(i).getName()).doubleValue());
-            cell.setCellStyle(cellNumberStyle);
+    private void calculateAndInsertInParallel(List<Document> documentEntries, Report report, ReferenceDataSnapshot referenceData) {
+        // Partitions by employee, so every employee is calculated by exactly one worker
+        int parallelism = reportCalculationPool.getParallelism();
+        Collection<List<Document>> partitions = documentEntries.stream()
+                .collect(Collectors.groupingBy(document -> Math.floorMod(document.getEmployeeId().hashCode(), parallelism)))
+                .values();
+
+        CompletionService<List<ReportEntry>> completionService = new ExecutorCompletionService<>(reportCalculationPool);
+        for (List<Document> partition : partitions) {
+            completionService.submit(() -> partition.stream()
+                    .map(document -> documentEntryToReportEntry(document, report, referenceData))
+                    .collect(Collectors.toList()));
         }
 
-        cell = row.createCell(8 + accrualsList.size());
-        char accrualFormulaStart = (char) (8 + 65);
-        char accrualFormulaEnd = (char) (8 + 65 + accrualsList.size() - 1);
-        cell.setCellFormula(String.format("sum(%s%s:%s%s)", accrualFormulaStart, rowNumber, accrualFormulaEnd, rowNumber));
-        cell.setCellStyle(cellNumberStyle);
+        // Partitions are persisted in whatever order they finish
+        try {
+            for (int i = 0; i < partitions.size(); i++) {
+                reportEntryBatchRepository.insertAll(completionService.take().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Report calculation was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Report calculation failed", e.getCause());
+        }
+    }
 
-        for (int i = 0; i < deductionsList.size(); i++) {
-            cell = row.createCell(9 + accrualsList.size() + i);
-            cell.setCellValue(mapOfAmounts.get(deductionsList.get(i).getName()).doubleValue());
-            cell.setCellStyle(cellNumberStyle);
+    private List<Document> generateReportEntriesChunk(LocalDate from, LocalDate to, Report report, ReferenceDataSnapshot referenceData, Document lastDocument, int chunkSize, boolean inParallel) {
+        Pageable chunk = PageRequest.of(0, chunkSize);
+        List<Document> documentEntries = lastDocument == null
+                ? documentRepository.findChunkByEffectiveDateBetween(from, to, chunk)
+                : documentRepository.findChunkByEffectiveDateBetweenAfter(from, to, lastDocument.getEffectiveDate(), lastDocument.getId(), chunk);
+        if (documentEntries.isEmpty()) {
+            return documentEntries;
         }
 
-        cell = row.createCell(9 + accrualsList.size() + deductionsList.size());
-        cell.setCellValue(mapOfAmounts.get(PERSONAL_INCOME_TAX).doubleValue());
-        cell.setCellStyle(cellNumberStyle);
+        if (inParallel) {
+            calculateAndInsertInParallel(documentEntries, report, referenceData);
+        } else {
+            List<ReportEntry> reportEntries = documentEntries.stream()
+                    .map(document -> documentEntryToReportEntry(document, report, referenceData))
+                    .collect(Collectors.toList());
+            reportEntryBatchRepository.insertAll(reportEntries);
+        }
+        entityManager.clear();
+        return documentEntries;
+    }
 
-        cell = row.createCell(10 + accrualsList.size() + deductionsList.size());
-        cell.setCellValue(mapOfAmounts.get(PENSIONS_FUND).doubleValue());
-        cell.setCellStyle(cellNumberStyle);
+    private ReportDTO generateReportChunkByChunk(LocalDate from, LocalDate to, boolean inParallel, ReportGenerationListener listener) {
+        Report report = Report.builder()
+                .startDate(from)
+                .endDate(to)
+                .build();
+        Report savedReport = reportRepository.save(report);
+        Long reportId = savedReport.getId();
+        listener.onReportCreated(reportId);
+        int chunkSize = reportGenerationProperties.getChunkSize();
+        ReferenceDataSnapshot referenceData = loadReferenceData(from, to);
+
+        Document lastDocument = null;
+        List<Document> documentChunk;
+        int chunkNumber = 0;
+        do {
+            Document previousDocument = lastDocument;
+            documentChunk = transactionTemplate.execute(status -> generateReportEntriesChunk(from, to, savedReport, referenceData, previousDocument, chunkSize, inParallel));
+            if (!documentChunk.isEmpty()) {
+                lastDocument = documentChunk.get(documentChunk.size() - 1);
+                chunkNumber++;
+                listener.onChunkProcessed(documentChunk.size());
+                log.info("Report {}: chunk {} of {} documents committed", reportId, chunkNumber, documentChunk.size());
+            }
+        } while (documentChunk.size() == chunkSize);
+        taxCalculator.getCalculationCache().ifPresent(cache ->
+                log.info("Calculation cache: {} hits, {} misses, {} entries", cache.getHits(), cache.getMisses(), cache.getSize()));
 
-        cell = row.createCell(11 + accrualsList.size() + deductionsList.size());
-        char deductionFormulaStart = (char) (8 + 65 + 1 + accrualsList.size());
-        char deductionFormulaEnd = (char) (8 + 65 + 2 + accrualsList.size() + deductionsList.size());
-        cell.setCellFormula(String.format("sum(%s%s:%s%s)", deductionFormulaStart, rowNumber, deductionFormulaEnd, rowNumber));
-        cell.setCellStyle(cellNumberStyle);
+        return reportMapper.entityToDto(savedReport);
     }
 
-    private CellStyle getCellStringStyle(Workbook workbook) {
-        CellStyle stringStyle = workbook.createCellStyle();
-        stringStyle.setWrapText(false);
-        stringStyle.setBorderBottom(BorderStyle.THIN);
-        stringStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
-        return stringStyle;
+    public ReportDTO generateReportInChunks(LocalDate from, LocalDate to) {
+        return generateReportInChunks(from, to, ReportGenerationListener.NONE);
     }
 
-    private CellStyle getCellNumberStyle(Workbook workbook) {
-        DataFormat format = workbook.createDataFormat();
-
-        CellStyle numberStyle = workbook.createCellStyle();
-        numberStyle.setDataFormat(format.getFormat("#,###.##"));
-        numberStyle.setWrapText(true);
-        numberStyle.setBorderBottom(BorderStyle.THIN);
-        numberStyle.setDataFormat((short) 1);
-        numberStyle.setAlignment(HorizontalAlignment.LEFT);
-        numberStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
-        numberStyle.setAlignment(HorizontalAlignment.RIGHT);
-        return numberStyle;
+    public ReportDTO generateReportInChunks(LocalDate from, LocalDate to, ReportGenerationListener listener) {
+        return generateReportChunkByChunk(from, to, false, listener);
     }
 
-    private CellStyle getCellDateStyle(Workbook workbook) {
-        CellStyle dateStyle = workbook.createCellStyle();
-        dateStyle.setWrapText(true);
-        dateStyle.setBorderBottom(BorderStyle.THIN);
-        dateStyle.setDataFormat((short) 14);
-        dateStyle.setBottomBorderColor(HSSFColor.HSSFColorPredefined.TEAL.getIndex());
-        return dateStyle;
+    public ReportDTO generateReportInParallel(LocalDate from, LocalDate to) {
+        return generateReportInParallel(from, to, ReportGenerationListener.NONE);
     }
 
-    private Map<Employee, Map<String, BigDecimal>> createMapOfAmountsForAllEmployee(List<ReportEntry> reportEntries) {
-        Map<Employee, Map<String, BigDecimal>> amountsPerEmployee = new HashMap<>();
-
-        for (ReportEntry reportEntry : reportEntries) {
-            Employee employee = reportEntry.getEmployee();
-            String benefitName = reportEntry.getBenefit().getName();
-            BigDecimal amount = reportEntry.getGrossAmount();
-            BigDecimal pensionsAmount = reportEntry.getPensionsFund();
-            BigDecimal taxAmount = reportEntry.getPersonalIncomeTax();
-
-            if (amountsPerEmployee.containsKey(employee)) {
-                Map<String, BigDecimal> benefitsWithAmounts = amountsPerEmployee.get(employee);
-                if (benefitsWithAmounts.containsKey(benefitName)) {
-                    benefitsWithAmounts.put(benefitName, benefitsWithAmounts.get(benefitName).add(amount));
-                    benefitsWithAmounts.put(PENSIONS_FUND, benefitsWithAmounts.get(PENSIONS_FUND).add(pensionsAmount));
-                    benefitsWithAmounts.put(PERSONAL_INCOME_TAX, benefitsWithAmounts.get(PERSONAL_INCOME_TAX).add(taxAmount));
-                } else {
-                    benefitsWithAmounts.put(benefitName, amount);
-                    benefitsWithAmounts.put(PENSIONS_FUND, benefitsWithAmounts.get(PENSIONS_FUND).add(pensionsAmount));
-                    benefitsWithAmounts.put(PERSONAL_INCOME_TAX, benefitsWithAmounts.get(PERSONAL_INCOME_TAX).add(taxAmount));
-                }
-            } else {
-                Map<String, BigDecimal> benefitsWithAmounts = new HashMap<>();
-                benefitsWithAmounts.put(benefitName, amount);
-                benefitsWithAmounts.put(PENSIONS_FUND, pensionsAmount);
-                benefitsWithAmounts.put(PERSONAL_INCOME_TAX, taxAmount);
-                amountsPerEmployee.put(employee, benefitsWithAmounts);
-            }
-        }
-        return amountsPerEmployee;
+    public ReportDTO generateReportInParallel(LocalDate from, LocalDate to, ReportGenerationListener listener) {
+        return generateReportChunkByChunk(from, to, true, listener);
     }
 
-    public Workbook extractReportEntriesByReportId(Long reportId) {
-        List<ReportEntry> reportEntries = reportEntryRepository.findAllByReportId(reportId);
-
-        List<Benefit> accrualsList = reportEntries.stream()
-                .map(ReportEntry::getBenefit)
-                .filter(benefit -> benefit.getBenefitTypeName().equals(ACCRUAL))
-                .distinct()
-                .collect(Collectors.toList());
-        List<Benefit> deductionsList = reportEntries.stream()
-                .map(ReportEntry::getBenefit)
-                .filter(benefit -> benefit.getBenefitTypeName().equals(DEDUCTION))
-                .distinct()
-                .collect(Collectors.toList());
-
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Payroll Register");
-        applyCommonSheetStyleForPayrollRegisterFile(sheet);
-        applyHeaderCellStyleForPayrollRegisterFile(workbook, sheet, accrualsList, deductionsList);
-
-        Map<Employee, Map<String, BigDecimal>> amountsPerEmployee = createMapOfAmountsForAllEmployee(reportEntries);
-
-        int rowNumber = 2;
-        for (Map.Entry<Employee, Map<String, BigDecimal>> entry : amountsPerEmployee.entrySet()) {
-            ReportEntry reportEntry = reportEntries.get(rowNumber - 2);
-
-            writeReportEntryDataInPayrollRegisterFileRows(workbook, sheet, rowNumber, reportEntry, entry, accrualsList, deductionsList);
-            rowNumber += 1;
+    private ReportDTO regenerateChangedReportEntries(Report report) {
+        LocalDate from = report.getStartDate();
+        LocalDate to = report.getEndDate();
+        int removedEntries = reportEntryBatchRepository.deleteStaleEntries(report.getId(), from, to);
+        List<Document> documentEntries = documentRepository.findWithoutEntriesInReport(report.getId(), from, to);
+
+        if (!documentEntries.isEmpty()) {
+            Set<Long> employeeIds = documentEntries.stream().map(Document::getEmployeeId).collect(Collectors.toSet());
+            Set<Long> benefitIds = documentEntries.stream().map(Document::getBenefitId).collect(Collectors.toSet());
+            ReferenceDataSnapshot referenceData = ReferenceDataSnapshot.of(
+                    employeeRepository.findAllById(employeeIds),
+                    benefitRepository.findAllById(benefitIds));
+            List<ReportEntry> reportEntries = documentEntries.stream()
+                    .map(document -> documentEntryToReportEntry(document, report, referenceData))
+                    .collect(Collectors.toList());
+            reportEntryBatchRepository.insertAll(reportEntries);
         }
-        applySummarizingCellStyleForPayrollRegisterFile(workbook, amountsPerEmployee, accrualsList, deductionsList);
 
-        return workbook;
+        log.info("Report {}: {} stale entries removed, {} documents recalculated", report.getId(), removedEntries, documentEntries.size());
+        return reportMapper.entityToDto(report);
     }
 
-    public List<ReportEntryDTO> getReportEntriesByReportId(Long reportId) {
-        return reportEntryMapper.entityToDto(reportEntryRepository.findAllByReportId(reportId));
+    public ReportDTO regenerateReport(Long reportId) {
+        Report report = reportRepository.findById(reportId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, String.format("Report %s not found", reportId)));
+        return transactionTemplate.execute(status -> regenerateChangedReportEntries(report));
     }
 
-    public Workbook extractAllReports() {
-        List<Report> reportList = reportRepository.findAll();
-
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("List of reports");
-        applyCommonSheetStyleForListOfReportsFile(sheet);
-
-        applyHeaderCellStyleForListOfReportsFile(workbook, sheet);
-        CellStyle numberStyle = getCellNumberStyle(workbook);
-        CellStyle dateStyle = getCellDateStyle(workbook);
-
-        for (int i = 0; i < reportList.size(); i++) {
-            Report report = reportList.get(i);
-            writeReportDataInListOfReportsFileRows(sheet, i + 1, report, numberStyle, dateStyle);
-        }
-        return workbook;
-    }
-
-    public List<ReportEntryDTO> generateReportEntries(LocalDate from, LocalDate to) {
-        Report report = Report.builder()
-                .startDate(from)
-                .endDate(to)
-                .build();
-        Report savedReport = reportRepository.save(report);
-
-        List<Document> documentEntries = documentRepository.findByEffectiveDateBetween(from, to);
-        List<ReportEntry> reportEntries = documentEntries.stream()
-                .map(document -> documentEntryToReportEntry(document, savedReport))
-                .collect(Collectors.toList());
-        List<ReportEntry> savedReportEntries = reportEntryRepository.saveAll(reportEntries);
-        return reportEntryMapper.entityToDto(savedReportEntries);
+    public CalculationCacheStatsDTO getCalculationCacheStats() {
+        return taxCalculator.getCalculationCache()
+                .map(cache -> {
+                    long lookups = cache.getHits() + cache.getMisses();
+                    return CalculationCacheStatsDTO.builder()
+                            .enabled(true)
+                            .maximumSize(cache.getMaximumSize())
+                            .size(cache.getSize())
+                            .hits(cache.getHits())
+                            .misses(cache.getMisses())
+                            .resets(cache.getResets())
+                            .hitRate(lookups == 0 ? 0 : (double) cache.getHits() / lookups)
+                            .build();
+                })
+                .orElseGet(() -> CalculationCacheStatsDTO.builder().enabled(false).build());
     }
 
     public List<ReportDTO> getAllReports() {
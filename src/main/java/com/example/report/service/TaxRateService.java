@@ -0,0 +1,107 @@
+package com.example.report.service;
+
+import com.example.report.calculation.MinorUnits;
+import com.example.report.calculation.TaxCalculator;
+import com.example.report.calculation.TaxRates;
+import com.example.report.calculation.TaxRuleVersions;
+import com.example.report.model.TaxRateVersion;
+import com.example.report.model.TaxRateVersionDTO;
+import com.example.report.model.TaxRateVersionMapper;
+import com.example.report.repository.TaxRateVersionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Loads the tax rate versions from the database and compiles them into the {@link TaxCalculator},
+ * at startup and whenever the versions change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TaxRateService {
+
+    private final TaxRateVersionRepository taxRateVersionRepository;
+    private final TaxRateVersionMapper taxRateVersionMapper;
+    private final TaxCalculator taxCalculator;
+
+    // NUMERIC(9,6) comes back with scale 6; stripping it keeps the scale of intermediate results unchanged
+    private static TaxRates toTaxRates(TaxRateVersion taxRateVersion) {
+        return TaxRates.builder()
+                .netRate(taxRateVersion.getNetRate().stripTrailingZeros())
+                .pensionsFundRate(taxRateVersion.getPensionsFundRate().stripTrailingZeros())
+                .personalIncomeTaxRate(taxRateVersion.getPersonalIncomeTaxRate().stripTrailingZeros())
+                .netRateWithoutPensions(taxRateVersion.getNetRateWithoutPensions().stripTrailingZeros())
+                .personalIncomeTaxRateWithoutPensions(taxRateVersion.getPersonalIncomeTaxRateWithoutPensions().stripTrailingZeros())
+                .personalIncomeTaxRateOnNet(taxRateVersion.getPersonalIncomeTaxRateOnNet().stripTrailingZeros())
+                .build();
+    }
+
+    @PostConstruct
+    public void reloadTaxRates() {
+        List<TaxRateVersion> taxRateVersions = taxRateVersionRepository.findAllByOrderByEffectiveFrom();
+        if (taxRateVersions.isEmpty()) {
+            log.warn("No tax rate versions found, calculating with default tax rates");
+            taxCalculator.updateTaxRuleVersions(TaxRuleVersions.single(TaxRates.DEFAULT));
+            return;
+        }
+
+        NavigableMap<LocalDate, TaxRates> taxRatesByEffectiveFrom = new TreeMap<>();
+        for (TaxRateVersion taxRateVersion : taxRateVersions) {
+            taxRatesByEffectiveFrom.put(taxRateVersion.getEffectiveFrom(), toTaxRates(taxRateVersion));
+        }
+        taxCalculator.updateTaxRuleVersions(TaxRuleVersions.compile(taxRatesByEffectiveFrom));
+        log.info("Compiled {} tax rate versions", taxRatesByEffectiveFrom.size());
+    }
+
+    public List<TaxRateVersionDTO> getAllTaxRateVersions() {
+        return taxRateVersionMapper.entityToDto(taxRateVersionRepository.findAllByOrderByEffectiveFrom());
+    }
+
+    // Rates are shares below one, with at most the six decimals of the NUMERIC(9,6) columns.
+    // Gross-up divides by the net rates, so those must be positive as well.
+    private static void validateRate(String name, BigDecimal rate, boolean positive) {
+        if (rate == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("%s is required", name));
+        }
+        if (rate.signum() < 0 || (positive && rate.signum() == 0) || rate.compareTo(BigDecimal.ONE) >= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("%s must be %s and below 1, got %s", name, positive ? "above 0" : "at least 0", rate));
+        }
+        if (rate.stripTrailingZeros().scale() > MinorUnits.RATE_SCALE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("%s must have at most %s decimals, got %s", name, MinorUnits.RATE_SCALE, rate));
+        }
+    }
+
+    private void validate(TaxRateVersionDTO taxRateVersionDTO) {
+        if (taxRateVersionDTO.getEffectiveFrom() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "effectiveFrom is required");
+        }
+        validateRate("netRate", taxRateVersionDTO.getNetRate(), true);
+        validateRate("pensionsFundRate", taxRateVersionDTO.getPensionsFundRate(), false);
+        validateRate("personalIncomeTaxRate", taxRateVersionDTO.getPersonalIncomeTaxRate(), false);
+        validateRate("netRateWithoutPensions", taxRateVersionDTO.getNetRateWithoutPensions(), true);
+        validateRate("personalIncomeTaxRateWithoutPensions", taxRateVersionDTO.getPersonalIncomeTaxRateWithoutPensions(), false);
+        validateRate("personalIncomeTaxRateOnNet", taxRateVersionDTO.getPersonalIncomeTaxRateOnNet(), false);
+        if (taxRateVersionRepository.existsByEffectiveFrom(taxRateVersionDTO.getEffectiveFrom())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("A tax rate version effective from %s already exists", taxRateVersionDTO.getEffectiveFrom()));
+        }
+    }
+
+    public TaxRateVersionDTO addTaxRateVersion(TaxRateVersionDTO taxRateVersionDTO) {
+        validate(taxRateVersionDTO);
+        TaxRateVersion taxRateVersion = taxRateVersionMapper.dtoToEntity(taxRateVersionDTO);
+        taxRateVersion.setId(null);
+        TaxRateVersion savedTaxRateVersion = taxRateVersionRepository.save(taxRateVersion);
+        reloadTaxRates();
+        return taxRateVersionMapper.entityToDto(savedTaxRateVersion);
+    }
+}
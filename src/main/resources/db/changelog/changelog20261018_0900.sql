@@ -0,0 +1,4 @@
+-- liquibase formatted sql
+
+-- changeset nika.avalishvili:1
+CREATE INDEX documents_effective_date_id_idx ON documents (effective_date, id)
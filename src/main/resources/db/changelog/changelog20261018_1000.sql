@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+-- changeset nika.avalishvili:1
+ALTER SEQUENCE report_entry_id_seq INCREMENT BY 50;
+SELECT setval('report_entry_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM report_entry), 50));
@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset nika.avalishvili:1
+ALTER TABLE report_entry
+    ADD COLUMN document_amount NUMERIC(19,2),
+    ADD COLUMN document_upload_date DATE
+
+-- changeset nika.avalishvili:2
+CREATE INDEX report_entry_report_id_document_id_idx ON report_entry (report_id, document_id)
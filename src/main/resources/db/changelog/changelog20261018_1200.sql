@@ -0,0 +1,16 @@
+-- liquibase formatted sql
+
+-- changeset nika.avalishvili:1
+CREATE TABLE tax_rate_version (id SERIAL PRIMARY KEY,
+                               effective_from DATE NOT NULL UNIQUE,
+                               net_rate NUMERIC(9,6) NOT NULL,
+                               pensions_fund_rate NUMERIC(9,6) NOT NULL,
+                               personal_income_tax_rate NUMERIC(9,6) NOT NULL,
+                               net_rate_without_pensions NUMERIC(9,6) NOT NULL,
+                               personal_income_tax_rate_without_pensions NUMERIC(9,6) NOT NULL,
+                               personal_income_tax_rate_on_net NUMERIC(9,6) NOT NULL)
+
+-- changeset nika.avalishvili:2
+INSERT INTO tax_rate_version (effective_from, net_rate, pensions_fund_rate, personal_income_tax_rate,
+                              net_rate_without_pensions, personal_income_tax_rate_without_pensions, personal_income_tax_rate_on_net)
+VALUES ('1900-01-01', 0.784, 0.02, 0.196, 0.8, 0.2, 0.25)
@@ -0,0 +1,78 @@
+-- liquibase formatted sql
+
+-- changeset nika.avalishvili:1
+CREATE TABLE report_employee_totals (report_id INT NOT NULL REFERENCES report ON DELETE CASCADE,
+                                     employee_id INT NOT NULL,
+                                     benefit_id INT NOT NULL,
+                                     gross_amount NUMERIC(19,2) NOT NULL,
+                                     pensions_fund NUMERIC(19,2) NOT NULL,
+                                     personal_income_tax NUMERIC(19,2) NOT NULL,
+                                     net_amount NUMERIC(19,2) NOT NULL,
+                                     entry_count INT NOT NULL,
+                                     PRIMARY KEY (report_id, employee_id, benefit_id))
+
+-- changeset nika.avalishvili:2
+INSERT INTO report_employee_totals (report_id, employee_id, benefit_id, gross_amount, pensions_fund, personal_income_tax, net_amount, entry_count)
+SELECT report_id, employee_id, benefit_id,
+       coalesce(sum(gross_amount), 0), coalesce(sum(pensions_fund), 0), coalesce(sum(personal_income_tax), 0), coalesce(sum(net_amount), 0),
+       count(*)
+FROM report_entry
+WHERE report_id IS NOT NULL AND employee_id IS NOT NULL AND benefit_id IS NOT NULL
+GROUP BY report_id, employee_id, benefit_id
+
+-- changeset nika.avalishvili:3 splitStatements:false
+CREATE OR REPLACE FUNCTION add_report_employee_totals() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO report_employee_totals (report_id, employee_id, benefit_id, gross_amount, pensions_fund, personal_income_tax, net_amount, entry_count)
+    SELECT report_id, employee_id, benefit_id,
+           coalesce(sum(gross_amount), 0), coalesce(sum(pensions_fund), 0), coalesce(sum(personal_income_tax), 0), coalesce(sum(net_amount), 0),
+           count(*)
+    FROM inserted_entries
+    WHERE report_id IS NOT NULL AND employee_id IS NOT NULL AND benefit_id IS NOT NULL
+    GROUP BY report_id, employee_id, benefit_id
+    ON CONFLICT (report_id, employee_id, benefit_id) DO UPDATE
+        SET gross_amount = report_employee_totals.gross_amount + EXCLUDED.gross_amount,
+            pensions_fund = report_employee_totals.pensions_fund + EXCLUDED.pensions_fund,
+            personal_income_tax = report_employee_totals.personal_income_tax + EXCLUDED.personal_income_tax,
+            net_amount = report_employee_totals.net_amount + EXCLUDED.net_amount,
+            entry_count = report_employee_totals.entry_count + EXCLUDED.entry_count;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql
+
+-- changeset nika.avalishvili:4 splitStatements:false
+CREATE OR REPLACE FUNCTION subtract_report_employee_totals() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE report_employee_totals t
+    SET gross_amount = t.gross_amount - d.gross_amount,
+        pensions_fund = t.pensions_fund - d.pensions_fund,
+        personal_income_tax = t.personal_income_tax - d.personal_income_tax,
+        net_amount = t.net_amount - d.net_amount,
+        entry_count = t.entry_count - d.entry_count
+    FROM (SELECT report_id, employee_id, benefit_id,
+                 coalesce(sum(gross_amount), 0) AS gross_amount, coalesce(sum(pensions_fund), 0) AS pensions_fund,
+                 coalesce(sum(personal_income_tax), 0) AS personal_income_tax, coalesce(sum(net_amount), 0) AS net_amount,
+                 count(*) AS entry_count
+          FROM deleted_entries
+          WHERE report_id IS NOT NULL AND employee_id IS NOT NULL AND benefit_id IS NOT NULL
+          GROUP BY report_id, employee_id, benefit_id) d
+    WHERE t.report_id = d.report_id AND t.employee_id = d.employee_id AND t.benefit_id = d.benefit_id;
+
+    DELETE FROM report_employee_totals
+    WHERE report_id IN (SELECT DISTINCT report_id FROM deleted_entries WHERE report_id IS NOT NULL)
+      AND entry_count <= 0;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql
+
+-- changeset nika.avalishvili:5
+CREATE TRIGGER report_entry_totals_insert
+    AFTER INSERT ON report_entry
+    REFERENCING NEW TABLE AS inserted_entries
+    FOR EACH STATEMENT EXECUTE PROCEDURE add_report_employee_totals()
+
+-- changeset nika.avalishvili:6
+CREATE TRIGGER report_entry_totals_delete
+    AFTER DELETE ON report_entry
+    REFERENCING OLD TABLE AS deleted_entries
+    FOR EACH STATEMENT EXECUTE PROCEDURE subtract_report_employee_totals()
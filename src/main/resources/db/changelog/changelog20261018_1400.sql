@@ -0,0 +1,4 @@
+-- liquibase formatted sql
+
+-- changeset nika.avalishvili:1
+CREATE INDEX report_entry_report_id_id_idx ON report_entry (report_id, id)
@@ -0,0 +1,13 @@
+-- liquibase formatted sql
+
+-- changeset nika.avalishvili:1
+CREATE TRIGGER report_entry_totals_update_add
+    AFTER UPDATE ON report_entry
+    REFERENCING NEW TABLE AS inserted_entries
+    FOR EACH STATEMENT EXECUTE PROCEDURE add_report_employee_totals()
+
+-- changeset nika.avalishvili:2
+CREATE TRIGGER report_entry_totals_update_subtract
+    AFTER UPDATE ON report_entry
+    REFERENCING OLD TABLE AS deleted_entries
+    FOR EACH STATEMENT EXECUTE PROCEDURE subtract_report_employee_totals()
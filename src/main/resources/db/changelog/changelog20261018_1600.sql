@@ -0,0 +1,81 @@
+-- liquibase formatted sql
+
+-- changeset nika.avalishvili:1
+ALTER TABLE report ADD COLUMN content_updated_at TIMESTAMP NOT NULL DEFAULT clock_timestamp()
+
+-- changeset nika.avalishvili:2
+CREATE INDEX report_employee_totals_employee_id_idx ON report_employee_totals (employee_id);
+CREATE INDEX report_employee_totals_benefit_id_idx ON report_employee_totals (benefit_id)
+
+-- changeset nika.avalishvili:3 splitStatements:false
+CREATE OR REPLACE FUNCTION touch_reports_of_entries() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE report SET content_updated_at = clock_timestamp()
+        WHERE id IN (SELECT report_id FROM new_entries);
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE report SET content_updated_at = clock_timestamp()
+        WHERE id IN (SELECT report_id FROM old_entries);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql
+
+-- changeset nika.avalishvili:4
+CREATE TRIGGER report_entry_touch_report_insert
+    AFTER INSERT ON report_entry
+    REFERENCING NEW TABLE AS new_entries
+    FOR EACH STATEMENT EXECUTE PROCEDURE touch_reports_of_entries()
+
+-- changeset nika.avalishvili:5
+CREATE TRIGGER report_entry_touch_report_update
+    AFTER UPDATE ON report_entry
+    REFERENCING OLD TABLE AS old_entries NEW TABLE AS new_entries
+    FOR EACH STATEMENT EXECUTE PROCEDURE touch_reports_of_entries()
+
+-- changeset nika.avalishvili:6
+CREATE TRIGGER report_entry_touch_report_delete
+    AFTER DELETE ON report_entry
+    REFERENCING OLD TABLE AS old_entries
+    FOR EACH STATEMENT EXECUTE PROCEDURE touch_reports_of_entries()
+
+-- changeset nika.avalishvili:7 splitStatements:false
+CREATE OR REPLACE FUNCTION touch_reports_of_employees() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE report SET content_updated_at = clock_timestamp()
+    WHERE id IN (SELECT t.report_id
+                 FROM report_employee_totals t
+                 JOIN new_employees n ON n.id = t.employee_id
+                 JOIN old_employees o ON o.id = n.id
+                 WHERE (n.first_name, n.last_name, n.department, n.positions, n.email)
+                           IS DISTINCT FROM (o.first_name, o.last_name, o.department, o.positions, o.email));
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql
+
+-- changeset nika.avalishvili:8
+CREATE TRIGGER employee_touch_report_update
+    AFTER UPDATE ON employee
+    REFERENCING OLD TABLE AS old_employees NEW TABLE AS new_employees
+    FOR EACH STATEMENT EXECUTE PROCEDURE touch_reports_of_employees()
+
+-- changeset nika.avalishvili:9 splitStatements:false
+CREATE OR REPLACE FUNCTION touch_reports_of_benefits() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE report SET content_updated_at = clock_timestamp()
+    WHERE id IN (SELECT t.report_id
+                 FROM report_employee_totals t
+                 JOIN new_benefits n ON n.id = t.benefit_id
+                 JOIN old_benefits o ON o.id = n.id
+                 WHERE (n.name, n.benefit_type_name, n.calculation_method_name)
+                           IS DISTINCT FROM (o.name, o.benefit_type_name, o.calculation_method_name));
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql
+
+-- changeset nika.avalishvili:10
+CREATE TRIGGER benefit_touch_report_update
+    AFTER UPDATE ON benefit
+    REFERENCING OLD TABLE AS old_benefits NEW TABLE AS new_benefits
+    FOR EACH STATEMENT EXECUTE PROCEDURE touch_reports_of_benefits()
@@ -0,0 +1,147 @@
+package com.example.report.calculation;
+
+import com.example.report.model.Benefit;
+import com.example.report.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TaxCalculatorTest {
+
+    private static final LocalDate EFFECTIVE_DATE = LocalDate.of(2022, 11, 30);
+
+    private final TaxCalculator taxCalculator = new TaxCalculator();
+
+    // The if/else calculation the rule table replaced, kept as the reference for exact results
+    private static BigDecimal[] referenceCalculation(BigDecimal amount, boolean isActive, boolean isPensionsPayer, String benefitType, String calculationMethod) {
+        if (!isActive) {
+            return new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
+        } else if (isPensionsPayer && benefitType.equals("Accrual") && calculationMethod.equals("Gross")) {
+            return new BigDecimal[]{amount.multiply(BigDecimal.valueOf(0.784)), amount.multiply(BigDecimal.valueOf(0.02)), amount.multiply(BigDecimal.valueOf(0.196)), amount};
+        } else if (isPensionsPayer && benefitType.equals("Accrual") && calculationMethod.equals("Net")) {
+            return new BigDecimal[]{amount, amount.multiply((BigDecimal.valueOf(0.02).divide(BigDecimal.valueOf(0.784), RoundingMode.HALF_UP))), amount.multiply(BigDecimal.valueOf(0.25)), amount.divide(BigDecimal.valueOf(0.784), RoundingMode.HALF_UP)};
+        } else if (!isPensionsPayer && benefitType.equals("Accrual") && calculationMethod.equals("Gross")) {
+            return new BigDecimal[]{amount.multiply(BigDecimal.valueOf(0.8)), BigDecimal.ZERO, amount.multiply(BigDecimal.valueOf(0.2)), amount};
+        } else if (!isPensionsPayer && benefitType.equals("Accrual") && calculationMethod.equals("Net")) {
+            return new BigDecimal[]{amount, BigDecimal.ZERO, amount.multiply(BigDecimal.valueOf(0.25)), amount.divide(BigDecimal.valueOf(0.8), RoundingMode.HALF_UP)};
+        } else {
+            return new BigDecimal[]{amount, BigDecimal.ZERO, BigDecimal.ZERO, amount};
+        }
+    }
+
+    @Test
+    void calculateMatchesReferenceCalculationExactly() {
+        List<BigDecimal> amounts = List.of(BigDecimal.valueOf(500), new BigDecimal("1020.00"), new BigDecimal("333.33"), new BigDecimal("0.01"));
+        List<String> benefitTypes = List.of("Accrual", "Deduction");
+        List<String> calculationMethods = List.of("Gross", "Net");
+        CalculatedAmounts result = new CalculatedAmounts();
+
+        for (BigDecimal amount : amounts) {
+            for (boolean isActive : new boolean[]{true, false}) {
+                for (boolean isPensionsPayer : new boolean[]{true, false}) {
+                    for (String benefitType : benefitTypes) {
+                        for (String calculationMethod : calculationMethods) {
+                            BigDecimal[] expected = referenceCalculation(amount, isActive, isPensionsPayer, benefitType, calculationMethod);
+                            taxCalculator.calculate(EFFECTIVE_DATE, amount, isActive, isPensionsPayer, benefitType, calculationMethod, result);
+
+                            assertThat(result.getNetAmount()).isEqualTo(expected[0]);
+                            assertThat(result.getPensionsFund()).isEqualTo(expected[1]);
+                            assertThat(result.getPersonalIncomeTax()).isEqualTo(expected[2]);
+                            assertThat(result.getGrossAmount()).isEqualTo(expected[3]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void fixedPointCalculationMatchesBigDecimalInCents() {
+        Random random = new Random(20221130);
+        CalculatedAmounts bigDecimalResult = new CalculatedAmounts();
+        FixedPointAmounts fixedPointResult = new FixedPointAmounts();
+
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(100_000_000), 2);
+            boolean isActive = random.nextInt(10) > 0;
+            boolean isPensionsPayer = random.nextBoolean();
+            String benefitType = random.nextBoolean() ? "Accrual" : "Deduction";
+            String calculationMethod = random.nextBoolean() ? "Gross" : "Net";
+
+            taxCalculator.calculate(EFFECTIVE_DATE, amount, isActive, isPensionsPayer, benefitType, calculationMethod, bigDecimalResult);
+            taxCalculator.calculate(EFFECTIVE_DATE, MinorUnits.fromBigDecimal(amount), isActive, isPensionsPayer, benefitType, calculationMethod, fixedPointResult);
+
+            assertThat(MinorUnits.toBigDecimal(fixedPointResult.getNetAmount())).isEqualTo(bigDecimalResult.getNetAmount().setScale(2, RoundingMode.HALF_UP));
+            assertThat(MinorUnits.toBigDecimal(fixedPointResult.getPensionsFund())).isEqualTo(bigDecimalResult.getPensionsFund().setScale(2, RoundingMode.HALF_UP));
+            assertThat(MinorUnits.toBigDecimal(fixedPointResult.getPersonalIncomeTax())).isEqualTo(bigDecimalResult.getPersonalIncomeTax().setScale(2, RoundingMode.HALF_UP));
+            assertThat(MinorUnits.toBigDecimal(fixedPointResult.getGrossAmount())).isEqualTo(bigDecimalResult.getGrossAmount().setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    @Test
+    void calculateWithCacheCountsHitsAndMisses() {
+        CalculationCache calculationCache = new CalculationCache(2);
+        TaxCalculator cachingTaxCalculator = new TaxCalculator(TaxRates.DEFAULT, calculationCache);
+        CalculatedAmounts result = new CalculatedAmounts();
+
+        cachingTaxCalculator.calculate(EFFECTIVE_DATE, BigDecimal.valueOf(500), true, true, "Accrual", "Gross", result);
+        cachingTaxCalculator.calculate(EFFECTIVE_DATE, BigDecimal.valueOf(500), true, true, "Accrual", "Gross", result);
+        assertThat(result.getNetAmount()).isEqualByComparingTo(BigDecimal.valueOf(392));
+        assertThat(calculationCache.getHits()).isEqualTo(1);
+        assertThat(calculationCache.getMisses()).isEqualTo(1);
+
+        cachingTaxCalculator.calculate(EFFECTIVE_DATE, BigDecimal.valueOf(500), true, false, "Accrual", "Gross", result);
+        cachingTaxCalculator.calculate(EFFECTIVE_DATE, BigDecimal.valueOf(700), true, false, "Accrual", "Gross", result);
+        assertThat(result.getNetAmount()).isEqualByComparingTo(BigDecimal.valueOf(560));
+        assertThat(calculationCache.getSize()).isLessThanOrEqualTo(2);
+        assertThat(calculationCache.getResets()).isEqualTo(1);
+    }
+
+    @Test
+    void calculateWithRatesInForceOnEffectiveDate() {
+        TaxRates raisedRates = TaxRates.builder()
+                .netRate(BigDecimal.valueOf(0.75))
+                .pensionsFundRate(BigDecimal.valueOf(0.05))
+                .personalIncomeTaxRate(BigDecimal.valueOf(0.2))
+                .netRateWithoutPensions(BigDecimal.valueOf(0.8))
+                .personalIncomeTaxRateWithoutPensions(BigDecimal.valueOf(0.2))
+                .personalIncomeTaxRateOnNet(BigDecimal.valueOf(0.25))
+                .build();
+        NavigableMap<LocalDate, TaxRates> versions = new TreeMap<>();
+        versions.put(LocalDate.of(2000, 1, 1), TaxRates.DEFAULT);
+        versions.put(LocalDate.of(2023, 1, 1), raisedRates);
+        TaxCalculator versionedTaxCalculator = new TaxCalculator(TaxRates.DEFAULT, new CalculationCache(10));
+        versionedTaxCalculator.updateTaxRuleVersions(TaxRuleVersions.compile(versions));
+        CalculatedAmounts result = new CalculatedAmounts();
+
+        versionedTaxCalculator.calculate(LocalDate.of(2022, 12, 31), BigDecimal.valueOf(500), true, true, "Accrual", "Gross", result);
+        assertThat(result.getNetAmount()).isEqualByComparingTo(BigDecimal.valueOf(392));
+
+        versionedTaxCalculator.calculate(LocalDate.of(2023, 1, 1), BigDecimal.valueOf(500), true, true, "Accrual", "Gross", result);
+        assertThat(result.getNetAmount()).isEqualByComparingTo(BigDecimal.valueOf(375));
+
+        assertThatThrownBy(() -> versionedTaxCalculator.calculate(LocalDate.of(1999, 12, 31), BigDecimal.valueOf(500), true, true, "Accrual", "Gross", result))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void calculateForEmployeeAndBenefit() {
+        Employee employee = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Benefit benefit = new Benefit(1L, "Annual Bonus", "Accrual", "Gross");
+
+        CalculatedAmounts result = taxCalculator.calculate(EFFECTIVE_DATE, BigDecimal.valueOf(500), employee, benefit);
+
+        assertThat(result.getNetAmount()).isEqualByComparingTo(BigDecimal.valueOf(392));
+        assertThat(result.getPersonalIncomeTax()).isEqualByComparingTo(BigDecimal.valueOf(98));
+        assertThat(result.getPensionsFund()).isEqualByComparingTo(BigDecimal.valueOf(10));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.report.config;
+
+import com.example.report.model.*;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares payload size and encode time of a report's entries in JSON, CBOR and Smile, using the application's
+ * ObjectMapper and message converters as Spring Boot configures them. Timings are logged only, since they depend
+ * on the machine. Tagged as a benchmark, so it only runs with the benchmark profile.
+ */
+@Slf4j
+@Tag("benchmark")
+@JsonTest
+@Import(BinaryEncodingConfig.class)
+public class BinaryEncodingBenchmarkTest {
+
+    private static final int ENTRY_COUNT = 20_000;
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
+    private static List<ReportEntryDTO> reportEntries() {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+        ReportDTO report = new ReportDTO(1L, testDate, testDate);
+        List<ReportEntryDTO> entries = new ArrayList<>(ENTRY_COUNT);
+        for (long i = 1; i <= ENTRY_COUNT; i++) {
+            long employeeId = i % 1_000;
+            long benefitId = i % 20;
+            entries.add(ReportEntryDTO.builder()
+                    .id(i)
+                    .employeeDTO(new EmployeeDTO(employeeId, "First" + employeeId, "Last" + employeeId, "Department", "Position", "email", true, true))
+                    .benefitDTOForMQ(new BenefitDTOForMQ(benefitId, "Benefit" + benefitId, "Accrual", "Gross"))
+                    .documentDTO(new DocumentDTO(i, testDate, testDate, employeeId, benefitId, BigDecimal.valueOf(i * 7, 2)))
+                    .grossAmount(BigDecimal.valueOf(i * 13, 2))
+                    .netAmount(BigDecimal.valueOf(i * 10, 2))
+                    .pensionsFund(new BigDecimal("13.00"))
+                    .personalIncomeTax(new BigDecimal("0.10"))
+                    .reportDTO(report)
+                    .build());
+        }
+        return entries;
+    }
+
+    private static byte[] encode(String name, ObjectMapper objectMapper, List<ReportEntryDTO> entries) throws Exception {
+        byte[] payload = objectMapper.writeValueAsBytes(entries);
+        long[] nanos = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            objectMapper.writeValueAsBytes(entries);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        log.info("{}: {} bytes, median encode time {} ms", name, payload.length, nanos[ROUNDS / 2] / 1_000_000.0);
+        return payload;
+    }
+
+    @Test
+    void binaryEncodingsAreSmallerAndRoundTripDecimalsExactly() throws Exception {
+        List<ReportEntryDTO> entries = reportEntries();
+        ObjectMapper json = objectMapper;
+        ObjectMapper cbor = cborHttpMessageConverter.getObjectMapper();
+        ObjectMapper smile = smileHttpMessageConverter.getObjectMapper();
+
+        byte[] jsonPayload = encode("JSON", json, entries);
+        byte[] cborPayload = encode("CBOR", cbor, entries);
+        byte[] smilePayload = encode("Smile", smile, entries);
+
+        assertThat(cborPayload.length).isLessThan(jsonPayload.length);
+        assertThat(smilePayload.length).isLessThan(jsonPayload.length);
+        // BigDecimal.equals compares the scale too, so 13.00 must come back as 13.00
+        assertThat(cbor.readValue(cborPayload, new TypeReference<List<ReportEntryDTO>>() {
+        })).isEqualTo(entries);
+        assertThat(smile.readValue(smilePayload, new TypeReference<List<ReportEntryDTO>>() {
+        })).isEqualTo(entries);
+    }
+}
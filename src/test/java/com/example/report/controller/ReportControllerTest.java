@@ -3,7 +3,9 @@ package com.example.report.controller;
 import com.example.report.model.*;
 import com.example.report.repository.*;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +14,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -21,9 +28,13 @@ import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -48,6 +59,8 @@ public class ReportControllerTest {
     BenefitRepository benefitRepository;
     @Autowired
     ReportMapper reportMapper;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
 
     @BeforeEach
     void cleanUp() {
@@ -105,6 +118,56 @@ public class ReportControllerTest {
         assertThat(actualReportEntryDTOsList.get(0).getPersonalIncomeTax()).isEqualByComparingTo(BigDecimal.valueOf(98));
     }
 
+    @Test
+    void generateReportInChunks() throws Exception {
+        documentRepository.save(new Document(1L, LocalDate.of(2022, 11, 30), LocalDate.of(2022, 11, 30), 1L, 1L, BigDecimal.valueOf(500)));
+        documentRepository.save(new Document(2L, LocalDate.of(2022, 11, 30), LocalDate.of(2022, 11, 30), 1L, 1L, BigDecimal.valueOf(1000)));
+        employeeRepository.save(new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true));
+        benefitRepository.save(new Benefit(1L, "Annual Bonus", "Accrual", "Gross"));
+
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        LocalDate to = LocalDate.of(2022, 12, 31);
+
+        String responseAsAString = mockMvc.perform(MockMvcRequestBuilders.post("/report/generateInChunks?startDate={from}&endDate={to}", from, to))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        ReportDTO actualReportDTO = objectMapper.readValue(responseAsAString, ReportDTO.class);
+        List<ReportEntry> actualReportEntries = reportEntryRepository.findAllByReportId(actualReportDTO.getId());
+
+        assertThat(actualReportEntries).hasSize(2);
+        assertThat(actualReportEntries.stream().map(ReportEntry::getNetAmount).reduce(BigDecimal.ZERO, BigDecimal::add)).isEqualByComparingTo(BigDecimal.valueOf(1176));
+    }
+
+    @Test
+    void submitReportJob() throws Exception {
+        documentRepository.save(new Document(1L, LocalDate.of(2022, 11, 30), LocalDate.of(2022, 11, 30), 1L, 1L, BigDecimal.valueOf(500)));
+        employeeRepository.save(new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true));
+        benefitRepository.save(new Benefit(1L, "Annual Bonus", "Accrual", "Gross"));
+
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        LocalDate to = LocalDate.of(2022, 12, 31);
+
+        String responseAsAString = mockMvc.perform(MockMvcRequestBuilders.post("/report/jobs?startDate={from}&endDate={to}", from, to))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        ReportJobDTO submittedJob = objectMapper.readValue(responseAsAString, ReportJobDTO.class);
+
+        ReportJobDTO actualJob = submittedJob;
+        for (int attempt = 0; attempt < 100 && actualJob.getStatus() != ReportJobStatus.COMPLETED && actualJob.getStatus() != ReportJobStatus.FAILED; attempt++) {
+            Thread.sleep(100);
+            responseAsAString = mockMvc.perform(MockMvcRequestBuilders.get("/report/jobs/{jobId}", submittedJob.getId()))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            actualJob = objectMapper.readValue(responseAsAString, ReportJobDTO.class);
+        }
+
+        assertThat(actualJob.getStatus()).isEqualTo(ReportJobStatus.COMPLETED);
+        assertThat(actualJob.getTotalDocuments()).isEqualTo(1);
+        assertThat(actualJob.getProcessedDocuments()).isEqualTo(1);
+        assertThat(reportEntryRepository.findAllByReportId(actualJob.getReportId())).hasSize(1);
+    }
+
     @Test
     void getAllReports() throws Exception {
         LocalDate testDate = LocalDate.of(2022, 10, 26);
@@ -203,7 +266,7 @@ public class ReportControllerTest {
         Long reportId = reportEntryRepository.save(reportEntry).getReport().getId();
 
         byte[] contentAsString = mockMvc.perform(MockMvcRequestBuilders.get("/report/extractReportEntries?reportId={reportId}", reportId))
-                .andExpect(status().isCreated())
+                .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsByteArray();
 
         ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(contentAsString);
@@ -214,4 +277,363 @@ public class ReportControllerTest {
         assertThat(workbook.getSheetAt(0).getRow(1).getCell(11).getNumericCellValue()).isEqualByComparingTo(reportEntry.getPensionsFund().doubleValue());
         assertThat(workbook.getSheetAt(0).getRow(1).getCell(2).getStringCellValue()).isEqualTo("Nika");
     }
+
+    @Test
+    void extractReportEntriesByReportIdNotModified() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        Document document = new Document(1L, testDate, testDate, 1L, 1L, BigDecimal.valueOf(1020));
+        Employee employee = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Benefit benefit = new Benefit(1L, "Salary", "Accrual", "Gross");
+        Report report = new Report(1L, testDate, testDate);
+
+        ReportEntry reportEntry = ReportEntry.builder()
+                .document(document)
+                .employee(employee)
+                .benefit(benefit)
+                .report(report)
+                .netAmount(BigDecimal.valueOf(509.6))
+                .grossAmount(BigDecimal.valueOf(650))
+                .personalIncomeTax(BigDecimal.valueOf(127.4))
+                .pensionsFund(BigDecimal.valueOf(13))
+                .build();
+        Long reportId = reportEntryRepository.save(reportEntry).getReport().getId();
+
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/report/extractReportEntries?reportId={reportId}", reportId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(eTag).isNotBlank();
+        mockMvc.perform(MockMvcRequestBuilders.get("/report/extractReportEntries?reportId={reportId}", reportId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        // The register shows employee names, so renaming the employee changes the register's version
+        jdbcTemplate.update("UPDATE employee SET last_name = ? WHERE id = ?", "Renamed", employee.getId());
+        String renamedETag = mockMvc.perform(MockMvcRequestBuilders.get("/report/extractReportEntries?reportId={reportId}", reportId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(renamedETag).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void streamReportEntriesAndPayrollRegister() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        Document document = new Document(1L, testDate, testDate, 1L, 1L, BigDecimal.valueOf(1020));
+        Employee employee = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Benefit benefit = new Benefit(1L, "Salary", "Accrual", "Gross");
+        Report report = new Report(1L, testDate, testDate);
+
+        ReportEntry reportEntry = ReportEntry.builder()
+                .document(document)
+                .employee(employee)
+                .benefit(benefit)
+                .report(report)
+                .netAmount(BigDecimal.valueOf(509.6))
+                .grossAmount(BigDecimal.valueOf(650))
+                .personalIncomeTax(BigDecimal.valueOf(127.4))
+                .pensionsFund(BigDecimal.valueOf(13))
+                .build();
+        Long reportId = reportEntryRepository.save(reportEntry).getReport().getId();
+
+        String csv = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}/streamEntries", reportId).param("format", "csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] csvLines = csv.split("\r\n");
+        assertThat(csvLines).hasSize(2);
+        assertThat(csvLines[1]).contains("Nika", "Salary", "650.00", "509.60");
+
+        String ndjson = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}/streamRegister", reportId)
+                        .header(HttpHeaders.ACCEPT, "application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] ndjsonLines = ndjson.split("\n");
+        assertThat(ndjsonLines).hasSize(1);
+        PayrollRegisterRow registerRow = objectMapper.readValue(ndjsonLines[0], PayrollRegisterRow.class);
+        assertThat(registerRow.getAccruals().get("Salary")).isEqualByComparingTo("650");
+        assertThat(registerRow.getNetPayableAmount()).isEqualByComparingTo("509.6");
+    }
+
+    @Test
+    void streamPayrollRegisterWithOneColumnPerBenefit() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        Employee employee = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Report report = new Report(1L, testDate, testDate);
+
+        List<ReportEntry> reportEntries = new ArrayList<>();
+        for (long i = 1; i <= 2; i++) {
+            reportEntries.add(ReportEntry.builder()
+                    .document(new Document(i, testDate, testDate, 1L, i, BigDecimal.valueOf(1020)))
+                    .employee(employee)
+                    .benefit(new Benefit(i, "Salary", "Accrual", "Gross"))
+                    .report(report)
+                    .grossAmount(BigDecimal.valueOf(100 * i))
+                    .build());
+        }
+        Long reportId = reportEntryRepository.saveAll(reportEntries).get(0).getReport().getId();
+
+        String ndjson = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}/streamRegister", reportId)
+                        .header(HttpHeaders.ACCEPT, "application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PayrollRegisterRow registerRow = objectMapper.readValue(ndjson.split("\n")[0], PayrollRegisterRow.class);
+        assertThat(registerRow.getAccruals()).containsOnlyKeys("Salary (1)", "Salary (2)");
+        assertThat(registerRow.getAccruals().get("Salary (1)")).isEqualByComparingTo("100");
+        assertThat(registerRow.getAccruals().get("Salary (2)")).isEqualByComparingTo("200");
+    }
+
+    @Test
+    void getReportEntriesPageByReportId() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        Document document = new Document(1L, testDate, testDate, 1L, 1L, BigDecimal.valueOf(1020));
+        Employee employee = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Benefit benefit = new Benefit(1L, "Salary", "Accrual", "Gross");
+        Report report = new Report(1L, testDate, testDate);
+
+        List<ReportEntry> reportEntries = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            reportEntries.add(ReportEntry.builder()
+                    .document(document)
+                    .employee(employee)
+                    .benefit(benefit)
+                    .report(report)
+                    .grossAmount(BigDecimal.valueOf(i))
+                    .build());
+        }
+        List<ReportEntry> savedEntries = reportEntryRepository.saveAll(reportEntries);
+        Long reportId = savedEntries.get(0).getReport().getId();
+
+        String response = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}", reportId).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<ReportEntryExportRow> firstPage = objectMapper.readValue(response, new TypeReference<>() {
+        });
+        assertThat(firstPage).extracting(ReportEntryExportRow::getId)
+                .containsExactly(savedEntries.get(0).getId(), savedEntries.get(1).getId());
+        assertThat(firstPage.get(0).getFirstName()).isEqualTo("Nika");
+        assertThat(firstPage.get(0).getBenefitName()).isEqualTo("Salary");
+
+        response = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}", reportId)
+                        .param("limit", "2")
+                        .param("after", String.valueOf(firstPage.get(1).getId())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<ReportEntryExportRow> lastPage = objectMapper.readValue(response, new TypeReference<>() {
+        });
+        assertThat(lastPage).extracting(ReportEntryExportRow::getId).containsExactly(savedEntries.get(2).getId());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}", reportId).param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getReportEntriesByReportIdCompact() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        Employee employee = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Benefit benefit = new Benefit(1L, "Salary", "Accrual", "Gross");
+        Report report = new Report(1L, testDate, testDate);
+
+        List<ReportEntry> reportEntries = new ArrayList<>();
+        for (long i = 1; i <= 2; i++) {
+            reportEntries.add(ReportEntry.builder()
+                    .document(new Document(i, testDate, testDate, 1L, 1L, BigDecimal.valueOf(1020)))
+                    .employee(employee)
+                    .benefit(benefit)
+                    .report(report)
+                    .grossAmount(new BigDecimal("650.10"))
+                    .build());
+        }
+        Long reportId = reportEntryRepository.saveAll(reportEntries).get(0).getReport().getId();
+
+        String response = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}", reportId).param("compact", "true"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode compact = objectMapper.readTree(response);
+
+        assertThat(compact.get("report").get("id").asLong()).isEqualTo(reportId);
+        assertThat(compact.get("employees").size()).isEqualTo(1);
+        assertThat(compact.get("employees").get("1").get("firstName").asText()).isEqualTo("Nika");
+        assertThat(compact.get("benefits").get("1").get("name").asText()).isEqualTo("Salary");
+        assertThat(compact.get("entries").size()).isEqualTo(2);
+        assertThat(compact.get("entries").get(1).get("employeeId").asLong()).isEqualTo(1L);
+        assertThat(compact.get("entries").get(1).get("documentId").asLong()).isEqualTo(2L);
+        assertThat(compact.get("entries").get(1).get("grossAmount").decimalValue()).isEqualByComparingTo("650.10");
+        assertThat(compact.get("entries").get(1).has("reportDTO")).isFalse();
+    }
+
+    @Test
+    void getReportEntriesByReportIdAsCbor() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        ReportEntry reportEntry = ReportEntry.builder()
+                .document(new Document(1L, testDate, testDate, 1L, 1L, BigDecimal.valueOf(1020)))
+                .employee(new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true))
+                .benefit(new Benefit(1L, "Salary", "Accrual", "Gross"))
+                .report(new Report(1L, testDate, testDate))
+                .grossAmount(new BigDecimal("650.10"))
+                .build();
+        Long reportId = reportEntryRepository.save(reportEntry).getReport().getId();
+
+        byte[] response = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}", reportId)
+                        .header(HttpHeaders.ACCEPT, "application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ObjectMapper cborMapper = new Jackson2ObjectMapperBuilder().factory(new CBORFactory()).build();
+        List<ReportEntryDTO> reportEntryDTOs = cborMapper.readValue(response, new TypeReference<>() {
+        });
+        assertThat(reportEntryDTOs.get(0).getGrossAmount()).isEqualTo(new BigDecimal("650.10"));
+        assertThat(reportEntryDTOs.get(0).getEmployeeDTO().getFirstName()).isEqualTo("Nika");
+    }
+
+    @Test
+    void getEmployeeTotalsByReportId() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        Document document = new Document(1L, testDate, testDate, 1L, 1L, BigDecimal.valueOf(1020));
+        Employee employee = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Benefit benefit = new Benefit(1L, "Salary", "Accrual", "Gross");
+        Report report = new Report(1L, testDate, testDate);
+
+        List<ReportEntry> reportEntries = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            reportEntries.add(ReportEntry.builder()
+                    .document(document)
+                    .employee(employee)
+                    .benefit(benefit)
+                    .report(report)
+                    .netAmount(BigDecimal.valueOf(509.6))
+                    .grossAmount(BigDecimal.valueOf(650))
+                    .personalIncomeTax(BigDecimal.valueOf(127.4))
+                    .pensionsFund(BigDecimal.valueOf(13))
+                    .build());
+        }
+        List<ReportEntry> savedEntries = reportEntryRepository.saveAll(reportEntries);
+        Long reportId = savedEntries.get(0).getReport().getId();
+
+        String response = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}/employeeTotals", reportId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<EmployeeBenefitTotals> totals = objectMapper.readValue(response, new TypeReference<>() {
+        });
+        assertThat(totals).hasSize(1);
+        assertThat(totals.get(0).getGrossAmount()).isEqualByComparingTo("1300");
+        assertThat(totals.get(0).getNetAmount()).isEqualByComparingTo("1019.2");
+
+        // Cascading a JPA remove would delete the report too, so the entry is deleted directly
+        jdbcTemplate.update("DELETE FROM report_entry WHERE id = ?", savedEntries.get(0).getId());
+        response = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}/employeeTotals", reportId))
+                .andReturn().getResponse().getContentAsString();
+        totals = objectMapper.readValue(response, new TypeReference<>() {
+        });
+        assertThat(totals.get(0).getGrossAmount()).isEqualByComparingTo("650");
+
+        jdbcTemplate.update("UPDATE report_entry SET gross_amount = gross_amount + 100 WHERE id = ?", savedEntries.get(1).getId());
+        response = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}/employeeTotals", reportId))
+                .andReturn().getResponse().getContentAsString();
+        totals = objectMapper.readValue(response, new TypeReference<>() {
+        });
+        assertThat(totals.get(0).getGrossAmount()).isEqualByComparingTo("750");
+        assertThat(totals.get(0).getNetAmount()).isEqualByComparingTo("509.6");
+
+        // Deleting the benefit sets benefit_id of the entry to NULL, which takes it out of the totals
+        jdbcTemplate.update("UPDATE report_entry SET benefit_id = NULL WHERE id = ?", savedEntries.get(1).getId());
+        response = mockMvc.perform(MockMvcRequestBuilders.get("/report/{reportId}/employeeTotals", reportId))
+                .andReturn().getResponse().getContentAsString();
+        totals = objectMapper.readValue(response, new TypeReference<>() {
+        });
+        assertThat(totals).isEmpty();
+    }
+
+    @Test
+    void extractPayrollRegisterArchive() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        List<Long> reportIds = new ArrayList<>();
+        for (long i = 1; i <= 2; i++) {
+            ReportEntry reportEntry = ReportEntry.builder()
+                    .document(new Document(i, testDate, testDate, i, i, BigDecimal.valueOf(1020)))
+                    .employee(new Employee(i, "Nika", "Avalishvili", "Department", "Position", "email", true, true))
+                    .benefit(new Benefit(i, "Salary", "Accrual", "Gross"))
+                    .report(new Report(null, testDate, testDate))
+                    .netAmount(BigDecimal.valueOf(509.6))
+                    .grossAmount(BigDecimal.valueOf(650))
+                    .personalIncomeTax(BigDecimal.valueOf(127.4))
+                    .pensionsFund(BigDecimal.valueOf(13))
+                    .build();
+            reportIds.add(reportEntryRepository.save(reportEntry).getReport().getId());
+        }
+
+        byte[] archive = mockMvc.perform(MockMvcRequestBuilders.get("/report/extractReportEntriesArchive")
+                        .param("startDate", testDate.toString())
+                        .param("endDate", testDate.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<String> entryNames = new ArrayList<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+                entryNames.add(entry.getName());
+                Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(zipInputStream.readAllBytes()));
+                assertThat(workbook.getSheetAt(0).getRow(1).getCell(2).getStringCellValue()).isEqualTo("Nika");
+            }
+        }
+        assertThat(entryNames).containsExactlyInAnyOrder(
+                String.format("Payroll_Register_%s.xlsx", reportIds.get(0)),
+                String.format("Payroll_Register_%s.xlsx", reportIds.get(1)));
+    }
+
+    @Test
+    void extractPayrollRegisterArchiveWithUnknownReportId() throws Exception {
+        LocalDate testDate = LocalDate.of(2022, 3, 14);
+
+        ReportEntry reportEntry = ReportEntry.builder()
+                .document(new Document(1L, testDate, testDate, 1L, 1L, BigDecimal.valueOf(1020)))
+                .employee(new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true))
+                .benefit(new Benefit(1L, "Salary", "Accrual", "Gross"))
+                .report(new Report(null, testDate, testDate))
+                .grossAmount(BigDecimal.valueOf(650))
+                .build();
+        Long reportId = reportEntryRepository.save(reportEntry).getReport().getId();
+        Long unknownReportId = reportId + 1000;
+
+        MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/report/extractReportEntriesArchive")
+                        .param("reportIds", reportId.toString(), unknownReportId.toString()))
+                .andExpect(status().isNotFound())
+                .andReturn().getResponse();
+        assertThat(response.getErrorMessage()).isEqualTo(String.format("Reports [%s] not found", unknownReportId));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isNull();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void addTaxRateVersionRejectsInvalidRates() throws Exception {
+        TaxRateVersionDTO taxRateVersionDTO = TaxRateVersionDTO.builder()
+                .effectiveFrom(LocalDate.of(2030, 1, 1))
+                .netRate(new BigDecimal("1.2"))
+                .pensionsFundRate(new BigDecimal("0.02"))
+                .personalIncomeTaxRate(new BigDecimal("0.196"))
+                .netRateWithoutPensions(new BigDecimal("0.8"))
+                .personalIncomeTaxRateWithoutPensions(new BigDecimal("0.2"))
+                .personalIncomeTaxRateOnNet(new BigDecimal("0.25"))
+                .build();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/report/taxRates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taxRateVersionDTO)))
+                .andExpect(status().isBadRequest());
+
+        taxRateVersionDTO.setNetRate(new BigDecimal("0.784"));
+        taxRateVersionDTO.setPensionsFundRate(null);
+        mockMvc.perform(MockMvcRequestBuilders.post("/report/taxRates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taxRateVersionDTO)))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.report.export;
+
+import com.example.report.model.Benefit;
+import com.example.report.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PayrollRegisterAggregatorTest {
+
+    private final Benefit salary = new Benefit(1L, "Salary", "Accrual", "Gross");
+    private final Benefit bonus = new Benefit(2L, "Bonus", "Accrual", "Net");
+    private final Benefit loan = new Benefit(3L, "Loan", "Deduction", "Gross");
+
+    @Test
+    void aggregatesAmountsPerEmployeeAndBenefit() {
+        PayrollRegisterAggregator aggregator = new PayrollRegisterAggregator(List.of(salary, bonus), List.of(loan));
+        // A different instance of the same employee, as a detached entity or a proxy would be
+        Employee employee = new Employee(7L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Employee sameEmployee = new Employee(7L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Employee otherEmployee = new Employee(8L, "Other", "Employee", "Department", "Position", "email", true, false);
+
+        aggregator.add(employee, 1L, new BigDecimal("650.00"), new BigDecimal("13.00"), new BigDecimal("127.40"));
+        aggregator.add(sameEmployee, 1L, new BigDecimal("100.00"), new BigDecimal("2.00"), new BigDecimal("19.60"));
+        aggregator.add(employee, 3L, new BigDecimal("50.00"), BigDecimal.ZERO, BigDecimal.ZERO);
+        aggregator.add(otherEmployee, 2L, new BigDecimal("0.005"), null, null);
+
+        PayrollRegisterMatrix matrix = aggregator.toMatrix();
+
+        assertThat(matrix.getEmployeeCount()).isEqualTo(2);
+        assertThat(matrix.getEmployee(0).getId()).isEqualTo(7L);
+        assertThat(matrix.getAccrual(0, 0)).isEqualTo(75000);
+        assertThat(matrix.getAccrual(0, 1)).isZero();
+        assertThat(matrix.getDeduction(0, 0)).isEqualTo(5000);
+        assertThat(matrix.getPensionsFund(0)).isEqualTo(1500);
+        assertThat(matrix.getPersonalIncomeTax(0)).isEqualTo(14700);
+        assertThat(matrix.getTotalAccruals(0)).isEqualTo(75000);
+        assertThat(matrix.getTotalDeductions(0)).isEqualTo(21200);
+        assertThat(matrix.getNetAmount(0)).isEqualTo(53800);
+        // Amounts with more than two decimals are rounded half up to minor units
+        assertThat(matrix.getAccrual(1, 1)).isEqualTo(1);
+    }
+
+    @Test
+    void growsRowsBeyondInitialCapacity() {
+        PayrollRegisterAggregator aggregator = new PayrollRegisterAggregator(List.of(salary), List.of());
+        for (long i = 0; i < 10_000; i++) {
+            Employee employee = new Employee(i, "First", "Last", "Department", "Position", "email", true, true);
+            aggregator.add(employee, 1L, BigDecimal.valueOf(i), BigDecimal.ONE, BigDecimal.ONE);
+        }
+
+        PayrollRegisterMatrix matrix = aggregator.toMatrix();
+
+        assertThat(matrix.getEmployeeCount()).isEqualTo(10_000);
+        assertThat(matrix.getAccrual(9_999, 0)).isEqualTo(999_900);
+        assertThat(matrix.getNetAmount(9_999)).isEqualTo(999_700);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.report.export;
+
+import com.example.report.config.ReportExportProperties;
+import com.example.report.model.*;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PayrollRegisterExporterTest {
+
+    private static final LocalDate TEST_DATE = LocalDate.of(2022, 3, 14);
+
+    private final PayrollRegisterExporter payrollRegisterExporter = new PayrollRegisterExporter(new ReportExportProperties());
+
+    private static List<ReportEntry> reportEntriesForEmployees(int employeeCount, int benefitCount) {
+        Report report = new Report(1L, TEST_DATE, TEST_DATE);
+        List<Benefit> benefits = new ArrayList<>();
+        for (long j = 1; j <= benefitCount; j++) {
+            benefits.add(new Benefit(j, "Salary" + j, "Accrual", "Gross"));
+        }
+        List<ReportEntry> reportEntries = new ArrayList<>();
+        for (long i = 1; i <= employeeCount; i++) {
+            Employee employee = new Employee(i, "First" + i, "Last" + i, "Department", "Position", "email", true, true);
+            for (Benefit benefit : benefits) {
+                long j = benefit.getId();
+                reportEntries.add(ReportEntry.builder()
+                        .id(i * benefitCount + j)
+                        .document(new Document(i * benefitCount + j, TEST_DATE, TEST_DATE, i, j, BigDecimal.valueOf(650)))
+                        .employee(employee)
+                        .benefit(benefit)
+                        .report(report)
+                        .netAmount(BigDecimal.valueOf(509.6))
+                        .grossAmount(BigDecimal.valueOf(650))
+                        .personalIncomeTax(BigDecimal.valueOf(127.4))
+                        .pensionsFund(BigDecimal.valueOf(13))
+                        .build());
+            }
+        }
+        return reportEntries;
+    }
+
+    @Test
+    void exportCreatesEachCellStyleOnce() {
+        Workbook smallRegister = payrollRegisterExporter.export(reportEntriesForEmployees(2, 1));
+        Workbook largeRegister = payrollRegisterExporter.export(reportEntriesForEmployees(500, 1));
+
+        assertThat(largeRegister.getNumCellStyles()).isEqualTo(smallRegister.getNumCellStyles());
+        // Rows before the streaming window are already flushed, so look at the last employee row
+        assertThat(largeRegister.getSheetAt(0).getRow(500).getCell(2).getCellStyle())
+                .isSameAs(largeRegister.getSheetAt(0).getRow(500).getCell(3).getCellStyle());
+
+        ((SXSSFWorkbook) smallRegister).dispose();
+        ((SXSSFWorkbook) largeRegister).dispose();
+    }
+
+    @Test
+    void exportAddressesColumnsPastZ() {
+        Workbook workbook = payrollRegisterExporter.export(reportEntriesForEmployees(1, 30));
+
+        // 30 accruals occupy columns I to AL, their total is in AM and total deductions in AP
+        assertThat(workbook.getSheetAt(0).getRow(0).getCell(38).getStringCellValue()).isEqualTo("Total accruals");
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(38).getCellFormula()).isEqualToIgnoringCase("sum(I2:AL2)");
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(7).getCellFormula()).isEqualToIgnoringCase("(AM2-AP2)");
+        assertThat(workbook.getSheetAt(0).getRow(2).getCell(41).getCellFormula()).isEqualToIgnoringCase("sum(AP2:AP2)");
+
+        ((SXSSFWorkbook) workbook).dispose();
+    }
+
+    @Test
+    void exportWritesPrecomputedTotals() {
+        ReportExportProperties reportExportProperties = new ReportExportProperties();
+        reportExportProperties.setPrecomputedTotals(true);
+        Workbook workbook = new PayrollRegisterExporter(reportExportProperties).export(reportEntriesForEmployees(2, 2));
+
+        // Two salaries of 650 less twice the 127.4 tax and 13 pensions of each employee
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(7).getNumericCellValue()).isEqualTo(1019.2);
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(10).getNumericCellValue()).isEqualTo(1300.0);
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(13).getNumericCellValue()).isEqualTo(280.8);
+        assertThat(workbook.getSheetAt(0).getRow(3).getCell(7).getNumericCellValue()).isEqualTo(2038.4);
+        assertThat(workbook.getSheetAt(0).getRow(3).getCell(10).getNumericCellValue()).isEqualTo(2600.0);
+
+        ((SXSSFWorkbook) workbook).dispose();
+    }
+}
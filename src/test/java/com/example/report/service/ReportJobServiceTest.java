@@ -0,0 +1,107 @@
+package com.example.report.service;
+
+import com.example.report.config.ReportGenerationProperties;
+import com.example.report.model.ReportDTO;
+import com.example.report.model.ReportJobDTO;
+import com.example.report.model.ReportJobStatus;
+import com.example.report.repository.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportJobServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2022, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2022, 1, 31);
+
+    @Mock
+    ReportService reportService;
+    @Mock
+    DocumentRepository documentRepository;
+    ReportGenerationProperties reportGenerationProperties;
+    ThreadPoolTaskExecutor reportJobExecutor;
+    ReportJobService reportJobService;
+
+    @BeforeEach
+    void setUp() {
+        reportGenerationProperties = new ReportGenerationProperties();
+        reportJobExecutor = new ThreadPoolTaskExecutor();
+        reportJobExecutor.setCorePoolSize(1);
+        reportJobExecutor.setMaxPoolSize(1);
+        reportJobExecutor.setQueueCapacity(0);
+        reportJobExecutor.initialize();
+        reportJobService = new ReportJobService(reportService, documentRepository, reportJobExecutor, reportGenerationProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportJobExecutor.shutdown();
+    }
+
+    private ReportJobDTO awaitFinished(ReportJobDTO job) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ReportJobDTO current = reportJobService.getJob(job.getId());
+            if (current.getStatus() == ReportJobStatus.COMPLETED || current.getStatus() == ReportJobStatus.FAILED) {
+                return current;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Report job did not finish");
+    }
+
+    @Test
+    void submitJobRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(reportService.generateReportInChunks(any(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new ReportDTO(1L, FROM, TO);
+        });
+
+        ReportJobDTO running = reportJobService.submitJob(FROM, TO, false);
+
+        assertThatThrownBy(() -> reportJobService.submitJob(FROM, TO, false))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(reportJobService.getAllJobs()).hasSize(1);
+
+        release.countDown();
+        assertThat(awaitFinished(running).getStatus()).isEqualTo(ReportJobStatus.COMPLETED);
+    }
+
+    @Test
+    void errorsFailTheJob() throws Exception {
+        Mockito.when(reportService.generateReportInChunks(any(), any(), any())).thenThrow(new StackOverflowError("Too deep"));
+
+        ReportJobDTO job = awaitFinished(reportJobService.submitJob(FROM, TO, false));
+
+        assertThat(job.getStatus()).isEqualTo(ReportJobStatus.FAILED);
+        assertThat(job.getErrorMessage()).isEqualTo("Too deep");
+    }
+
+    @Test
+    void finishedJobsAreEvictedAfterRetention() throws Exception {
+        reportGenerationProperties.setJobRetention(Duration.ZERO);
+        Mockito.when(reportService.generateReportInChunks(any(), any(), any())).thenReturn(new ReportDTO(1L, FROM, TO));
+
+        awaitFinished(reportJobService.submitJob(FROM, TO, false));
+        Thread.sleep(10);
+
+        assertThat(reportJobService.getAllJobs()).isEmpty();
+    }
+}
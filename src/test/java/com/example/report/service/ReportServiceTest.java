@@ -1,5 +1,10 @@
 package com.example.report.service;
 
+import com.example.report.calculation.TaxCalculator;
+import com.example.report.config.ReportExportProperties;
+import com.example.report.config.ReportGenerationProperties;
+import com.example.report.export.ListOfReportsExporter;
+import com.example.report.export.PayrollRegisterExporter;
 import com.example.report.model.*;
 import com.example.report.repository.*;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -10,14 +15,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 
 @ExtendWith(MockitoExtension.class)
 public class ReportServiceTest {
@@ -32,6 +49,16 @@ public class ReportServiceTest {
     ReportEntryRepository reportEntryRepository;
     @Mock
     BenefitRepository benefitRepository;
+    @Mock
+    ReportEntryBatchRepository reportEntryBatchRepository;
+    @Mock
+    ReportExportRepository reportExportRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @Mock
+    EntityManager entityManager;
+    ReportGenerationProperties reportGenerationProperties;
+    ReportExportProperties reportExportProperties;
     ReportMapper reportMapper;
     ReportEntryMapper reportEntryMapper;
     EmployeeMapper employeeMapper;
@@ -46,13 +73,25 @@ public class ReportServiceTest {
         benefitMapper = new BenefitMapper();
         documentMapper = new DocumentMapper();
         reportEntryMapper = new ReportEntryMapper(employeeMapper, benefitMapper, documentMapper, reportMapper);
+        reportGenerationProperties = new ReportGenerationProperties();
+        reportExportProperties = new ReportExportProperties();
         reportService = new ReportService(documentRepository,
                 employeeRepository,
                 benefitRepository,
                 reportRepository,
                 reportEntryRepository,
+                reportEntryBatchRepository,
                 reportEntryMapper,
-                reportMapper);
+                reportMapper,
+                reportGenerationProperties,
+                new TransactionTemplate(transactionManager),
+                entityManager,
+                new ForkJoinPool(2),
+                new TaxCalculator(),
+                new PayrollRegisterExporter(reportExportProperties),
+                new ListOfReportsExporter(reportRepository, reportExportProperties),
+                reportExportRepository,
+                reportExportProperties);
     }
 
     @Test
@@ -84,7 +123,7 @@ public class ReportServiceTest {
                 .isActive(true)
                 .isPensionsPayer(true)
                 .build();
-        Mockito.when(employeeRepository.getReferenceById(anyLong())).thenReturn(employee);
+        Mockito.when(employeeRepository.findAllReferencedByDocumentsEffectiveBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(employee));
 
         Benefit benefit = Benefit.builder()
                 .id(1L)
@@ -92,19 +131,8 @@ public class ReportServiceTest {
                 .benefitTypeName("Accrual")
                 .calculationMethodName("Gross")
                 .build();
-        Mockito.when(benefitRepository.getReferenceById(anyLong())).thenReturn(benefit);
-
-        ReportEntry reportEntry = ReportEntry.builder()
-                .report(report)
-                .employee(employee)
-                .benefit(benefit)
-                .netAmount(BigDecimal.valueOf(392))
-                .personalIncomeTax(BigDecimal.valueOf(98))
-                .pensionsFund(BigDecimal.valueOf(10))
-                .grossAmount(BigDecimal.valueOf(500))
-                .document(document)
-                .build();
-        Mockito.when(reportEntryRepository.saveAll(any())).thenReturn(List.of(reportEntry));
+        Mockito.when(benefitRepository.findAllReferencedByDocumentsEffectiveBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(benefit));
+        Mockito.when(reportEntryBatchRepository.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         List<ReportEntryDTO> reportEntryDTOS = reportService.generateReportEntries(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31));
 
@@ -112,6 +140,85 @@ public class ReportServiceTest {
         assertThat(reportEntryDTOS.get(0).getPersonalIncomeTax()).isEqualByComparingTo(BigDecimal.valueOf(98));
     }
 
+    @Test
+    void generateReportInChunks() {
+        reportGenerationProperties.setChunkSize(1);
+        Document document1 = new Document(1L, LocalDate.of(2022, 11, 30), LocalDate.of(2022, 4, 3), 1L, 1L, BigDecimal.valueOf(500));
+        Document document2 = new Document(2L, LocalDate.of(2022, 11, 30), LocalDate.of(2022, 4, 3), 1L, 1L, BigDecimal.valueOf(700));
+        Mockito.when(documentRepository.findChunkByEffectiveDateBetween(any(LocalDate.class), any(LocalDate.class), any(Pageable.class)))
+                .thenReturn(List.of(document1));
+        Mockito.when(documentRepository.findChunkByEffectiveDateBetweenAfter(any(LocalDate.class), any(LocalDate.class), any(LocalDate.class), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(document2), List.of());
+
+        Report report = new Report(1L, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31));
+        Mockito.when(reportRepository.save(any())).thenReturn(report);
+        Employee employee = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Benefit benefit = new Benefit(1L, "Salary", "Accrual", "Gross");
+        Mockito.when(employeeRepository.findAllReferencedByDocumentsEffectiveBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(employee));
+        Mockito.when(benefitRepository.findAllReferencedByDocumentsEffectiveBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(benefit));
+
+        ReportDTO reportDTO = reportService.generateReportInChunks(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31));
+
+        assertThat(reportDTO.getId()).isEqualTo(1L);
+        Mockito.verify(reportEntryBatchRepository, Mockito.times(2)).insertAll(any());
+        Mockito.verify(entityManager, Mockito.times(2)).clear();
+    }
+
+    @Test
+    void generateReportInParallel() {
+        Document document1 = new Document(1L, LocalDate.of(2022, 11, 30), LocalDate.of(2022, 4, 3), 1L, 1L, BigDecimal.valueOf(500));
+        Document document2 = new Document(2L, LocalDate.of(2022, 11, 30), LocalDate.of(2022, 4, 3), 2L, 1L, BigDecimal.valueOf(700));
+        Mockito.when(documentRepository.findChunkByEffectiveDateBetween(any(LocalDate.class), any(LocalDate.class), any(Pageable.class)))
+                .thenReturn(List.of(document1, document2));
+
+        Report report = new Report(1L, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31));
+        Mockito.when(reportRepository.save(any())).thenReturn(report);
+        Employee employee1 = new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true);
+        Employee employee2 = new Employee(2L, "Giorgi", "Beridze", "Department", "Position", "email", true, false);
+        Benefit benefit = new Benefit(1L, "Salary", "Accrual", "Gross");
+        Mockito.when(employeeRepository.findAllReferencedByDocumentsEffectiveBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(employee1, employee2));
+        Mockito.when(benefitRepository.findAllReferencedByDocumentsEffectiveBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(benefit));
+
+        List<ReportEntry> insertedReportEntries = new ArrayList<>();
+        Mockito.when(reportEntryBatchRepository.insertAll(any())).thenAnswer(invocation -> {
+            List<ReportEntry> reportEntries = invocation.getArgument(0);
+            insertedReportEntries.addAll(reportEntries);
+            return reportEntries;
+        });
+
+        reportService.generateReportInParallel(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31));
+
+        assertThat(insertedReportEntries).hasSize(2);
+        assertThat(insertedReportEntries.stream().map(ReportEntry::getNetAmount).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo(BigDecimal.valueOf(952));
+    }
+
+    @Test
+    void regenerateReport() {
+        Report report = new Report(1L, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31));
+        Mockito.when(reportRepository.findById(1L)).thenReturn(Optional.of(report));
+        Mockito.when(reportEntryBatchRepository.deleteStaleEntries(1L, report.getStartDate(), report.getEndDate())).thenReturn(1);
+
+        Document changedDocument = new Document(2L, LocalDate.of(2022, 11, 30), LocalDate.of(2022, 4, 3), 1L, 1L, BigDecimal.valueOf(1000));
+        Mockito.when(documentRepository.findWithoutEntriesInReport(1L, report.getStartDate(), report.getEndDate())).thenReturn(List.of(changedDocument));
+        Mockito.when(employeeRepository.findAllById(any())).thenReturn(List.of(new Employee(1L, "Nika", "Avalishvili", "Department", "Position", "email", true, true)));
+        Mockito.when(benefitRepository.findAllById(any())).thenReturn(List.of(new Benefit(1L, "Salary", "Accrual", "Gross")));
+
+        List<ReportEntry> insertedReportEntries = new ArrayList<>();
+        Mockito.when(reportEntryBatchRepository.insertAll(any())).thenAnswer(invocation -> {
+            List<ReportEntry> reportEntries = invocation.getArgument(0);
+            insertedReportEntries.addAll(reportEntries);
+            return reportEntries;
+        });
+
+        ReportDTO reportDTO = reportService.regenerateReport(1L);
+
+        assertThat(reportDTO.getId()).isEqualTo(1L);
+        assertThat(insertedReportEntries).hasSize(1);
+        assertThat(insertedReportEntries.get(0).getNetAmount()).isEqualByComparingTo(BigDecimal.valueOf(784));
+        Mockito.verify(documentRepository, Mockito.never()).findByEffectiveDateBetween(any(LocalDate.class), any(LocalDate.class));
+    }
+
     @Test
     void getAllReports() {
         LocalDate testDate = LocalDate.of(2022, 10, 26);
@@ -138,7 +245,7 @@ public class ReportServiceTest {
                 .grossAmount(BigDecimal.valueOf(7500))
                 .document(new Document())
                 .build();
-        Mockito.when(reportEntryRepository.findAllByReportId(anyLong())).thenReturn(List.of(reportEntry));
+        Mockito.when(reportEntryRepository.findAllWithAssociationsByReportId(anyLong())).thenReturn(List.of(reportEntry));
 
         assertThat(reportService.getReportEntriesByReportId(8L).get(0).getNetAmount()).isEqualByComparingTo(BigDecimal.valueOf(6000));
     }
@@ -146,9 +253,9 @@ public class ReportServiceTest {
     @Test
     void extractAllReports() {
         LocalDate testDate = LocalDate.of(2022, 10, 26);
-        Report report1 = new Report(17L, testDate, testDate);
-        Report report2 = new Report(19L, testDate, testDate);
-        Mockito.when(reportRepository.findAll()).thenReturn(List.of(report1, report2));
+        ReportDTO report1 = new ReportDTO(17L, testDate, testDate);
+        ReportDTO report2 = new ReportDTO(19L, testDate, testDate);
+        Mockito.when(reportRepository.findPageAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(report1, report2));
 
         Workbook workbook = reportService.extractAllReports();
 
@@ -156,6 +263,28 @@ public class ReportServiceTest {
         assertThat((long) workbook.getSheetAt(0).getRow(2).getCell(0).getNumericCellValue()).isEqualTo(report2.getId());
     }
 
+    @Test
+    void extractAllReportsWithinPeriod() {
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        LocalDate to = LocalDate.of(2022, 12, 31);
+        ReportDTO report = new ReportDTO(21L, from, to);
+        Mockito.when(reportRepository.findPageWithinPeriodAfter(from, to, 20L, PageRequest.of(0, 1))).thenReturn(List.of(report));
+
+        Workbook workbook = reportService.extractAllReports(from, to, 20L, 1);
+
+        assertThat((long) workbook.getSheetAt(0).getRow(1).getCell(0).getNumericCellValue()).isEqualTo(report.getId());
+        assertThat(workbook.getSheetAt(0).getRow(2)).isNull();
+    }
+
+    @Test
+    void extractAllReportsRejectsNonPositiveLimit() {
+        ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class,
+                () -> reportService.extractAllReports(null, null, null, -1));
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Mockito.verifyNoInteractions(reportRepository);
+    }
+
     @Test
     void extractReportEntriesByReportId() {
         LocalDate testDate = LocalDate.of(2022, 3, 14);
@@ -176,11 +305,51 @@ public class ReportServiceTest {
                 .personalIncomeTax(BigDecimal.valueOf(127.4))
                 .pensionsFund(BigDecimal.valueOf(13))
                 .build();
-        Mockito.when(reportEntryRepository.findAllByReportId(anyLong())).thenReturn(List.of(reportEntry));
+        Mockito.when(reportEntryRepository.findAllWithAssociationsByReportId(anyLong())).thenReturn(List.of(reportEntry));
+        reportExportProperties.setDatabaseAggregation(false);
         Workbook workbook = reportService.extractReportEntriesByReportId(1L);
 
         assertThat(workbook.getSheetAt(0).getRow(1).getCell(8).getNumericCellValue()).isEqualByComparingTo(reportEntry.getGrossAmount().doubleValue());
         assertThat(workbook.getSheetAt(0).getRow(1).getCell(11).getNumericCellValue()).isEqualByComparingTo(reportEntry.getPensionsFund().doubleValue());
         assertThat(workbook.getSheetAt(0).getRow(1).getCell(2).getStringCellValue()).isEqualTo("Nika");
     }
+
+    @Test
+    void extractReportEntriesByReportIdAggregatedInDatabase() {
+        Benefit salary = new Benefit(1L, "Salary", "Accrual", "Gross");
+        Benefit loan = new Benefit(2L, "Loan", "Deduction", "Gross");
+        EmployeeBenefitTotals salaryTotals = EmployeeBenefitTotals.builder()
+                .employeeId(1L)
+                .firstName("Nika")
+                .lastName("Avalishvili")
+                .benefitId(1L)
+                .grossAmount(new BigDecimal("650.00"))
+                .pensionsFund(new BigDecimal("13.00"))
+                .personalIncomeTax(new BigDecimal("127.40"))
+                .build();
+        EmployeeBenefitTotals loanTotals = EmployeeBenefitTotals.builder()
+                .employeeId(1L)
+                .firstName("Nika")
+                .lastName("Avalishvili")
+                .benefitId(2L)
+                .grossAmount(new BigDecimal("50.00"))
+                .pensionsFund(BigDecimal.ZERO)
+                .personalIncomeTax(BigDecimal.ZERO)
+                .build();
+        Mockito.when(reportExportRepository.findBenefitsByReportId(1L)).thenReturn(List.of(salary, loan));
+        Mockito.doAnswer(invocation -> {
+            Consumer<EmployeeBenefitTotals> consumer = invocation.getArgument(1);
+            consumer.accept(salaryTotals);
+            consumer.accept(loanTotals);
+            return null;
+        }).when(reportExportRepository).streamEmployeeBenefitTotals(eq(1L), any());
+
+        Workbook workbook = reportService.extractReportEntriesByReportId(1L);
+
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(2).getStringCellValue()).isEqualTo("Nika");
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(8).getNumericCellValue()).isEqualTo(650.0);
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(10).getNumericCellValue()).isEqualTo(50.0);
+        assertThat(workbook.getSheetAt(0).getRow(1).getCell(12).getNumericCellValue()).isEqualTo(13.0);
+        Mockito.verifyNoInteractions(reportEntryRepository);
+    }
 }